@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Накопленная статистика по одному запросу (query name): средние строки и байты на HTTP запрос
+ * и последние замеры времени выполнения для перцентилей.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public final class QueryStatistics {
+
+    /**
+     * После этого числа запросов среднее становится скользящим, чтобы статистика успевала за изменениями сервиса
+     */
+    private static final int AVERAGE_WINDOW = 100;
+    private static final int LATENCY_SAMPLES = 128;
+
+    private final long requests;
+    private final double rows;
+    private final double bytes;
+    private final List<Long> latencies;
+
+    @JsonCreator
+    public QueryStatistics(@JsonProperty("requests") long requests,
+                           @JsonProperty("rows") double rows,
+                           @JsonProperty("bytes") double bytes,
+                           @JsonProperty("latencies") List<Long> latencies) {
+        this.requests = requests;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.latencies = latencies == null ? Collections.emptyList() : latencies;
+    }
+
+    static QueryStatistics empty() {
+        return new QueryStatistics(0, 0, 0, null);
+    }
+
+    @JsonProperty
+    public long getRequests() {
+        return requests;
+    }
+
+    @JsonProperty
+    public double getRows() {
+        return rows;
+    }
+
+    @JsonProperty
+    public double getBytes() {
+        return bytes;
+    }
+
+    @JsonProperty
+    public List<Long> getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @param percentile от 0 до 1
+     * @return время выполнения запроса в мс
+     */
+    @JsonIgnore
+    public long getLatencyPercentile(double percentile) {
+        if (latencies.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+    }
+
+    QueryStatistics record(long requestRows, long requestBytes, long latency) {
+        double weight = 1.0 / Math.min(requests + 1, AVERAGE_WINDOW);
+
+        List<Long> newLatencies = new ArrayList<>(Math.min(latencies.size() + 1, LATENCY_SAMPLES));
+        newLatencies.addAll(latencies.size() < LATENCY_SAMPLES
+                ? latencies
+                : latencies.subList(latencies.size() - LATENCY_SAMPLES + 1, latencies.size()));
+        newLatencies.add(latency);
+
+        return new QueryStatistics(requests + 1,
+                rows + (requestRows - rows) * weight,
+                bytes + (requestBytes - bytes) * weight,
+                Collections.unmodifiableList(newLatencies));
+    }
+
+    /**
+     * Объединяет статистику, накопленную независимо (например, на разных drillbit'ах).
+     * Вес каждой стороны в средних ограничен тем же окном, что и в {@link #record}
+     *
+     * @param other более поздние замеры: их времена выполнения вытесняют старые
+     */
+    QueryStatistics merge(QueryStatistics other) {
+        if (other.requests == 0) {
+            return this;
+        } else if (requests == 0) {
+            return other;
+        }
+
+        double weight = Math.min(requests, AVERAGE_WINDOW);
+        double otherWeight = Math.min(other.requests, AVERAGE_WINDOW);
+
+        List<Long> newLatencies = new ArrayList<>(latencies.size() + other.latencies.size());
+        newLatencies.addAll(latencies);
+        newLatencies.addAll(other.latencies);
+
+        return new QueryStatistics(requests + other.requests,
+                (rows * weight + other.rows * otherWeight) / (weight + otherWeight),
+                (bytes * weight + other.bytes * otherWeight) / (weight + otherWeight),
+                Collections.unmodifiableList(new ArrayList<>(newLatencies.subList(
+                        Math.max(0, newLatencies.size() - LATENCY_SAMPLES), newLatencies.size()))));
+    }
+}
@@ -17,44 +17,49 @@
  */
 package org.apache.drill.exec.store.rest;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import org.apache.drill.shaded.guava.com.google.common.base.Preconditions;
 import org.apache.drill.shaded.guava.com.google.common.base.Stopwatch;
-import org.apache.drill.shaded.guava.com.google.common.collect.ImmutableMultimap;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.drill.common.config.DrillConfig;
 import org.apache.drill.common.exceptions.ExecutionSetupException;
 import org.apache.drill.common.exceptions.UserException;
 import org.apache.drill.exec.ops.OperatorContext;
 import org.apache.drill.exec.store.rest.config.HttpMethod;
 import org.apache.drill.exec.store.rest.config.RuntimeQueryConfig;
 import org.apache.drill.exec.store.rest.helpers.HandlebarsHelper;
+import org.apache.drill.exec.store.rest.query.ParameterCache;
+import org.apache.drill.exec.store.rest.query.ParameterResolver;
 import org.apache.drill.exec.store.rest.query.ParameterValue;
+import org.apache.drill.exec.store.rest.query.SubQueryExecutor;
 import org.apache.drill.exec.store.rest.read.RestMetric;
 import org.apache.drill.exec.store.rest.read.RestRecordReader;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpRequest;
+import org.apache.http.StatusLine;
 import org.apache.http.client.HttpResponseException;
-import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.*;
-import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.AbstractResponseHandler;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.protocol.HTTP;
+import org.apache.http.util.EntityUtils;
 import org.apache.http.util.Args;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.DrillBuf;
+import io.netty.buffer.Unpooled;
+
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -64,7 +69,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Oleg Zinoviev
@@ -75,28 +83,57 @@ public final class RequestHandler {
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RestRecordReader.class);
 
     private final RuntimeQueryConfig config;
-
-    private long subqueryTime = 0;
-
-    RequestHandler(RuntimeQueryConfig config) {
+    private final SubQueryExecutor subQueries;
+    private final ParameterCache parameterCache;
+    private final String userName;
+
+    private volatile HttpUriRequest current;
+    private volatile boolean aborted = false;
+    private long requestTime = 0;
+    private long subqueryCriticalPathTime = 0;
+    private final AtomicLong subqueryTime = new AtomicLong();
+    private final AtomicLong parameterCacheHits = new AtomicLong();
+
+    /**
+     * @param parameterCache кеш результатов параметров-подзапросов, может быть null
+     * @param userName       пользователь запроса, результаты подзапросов кешируются отдельно для каждого пользователя
+     */
+    RequestHandler(RuntimeQueryConfig config, SubQueryExecutor subQueries, ParameterCache parameterCache, String userName) {
         this.config = config;
+        this.subQueries = subQueries;
+        this.parameterCache = parameterCache;
+        this.userName = userName;
+    }
+
+    /**
+     * Выполняет запрос. Может вызываться не из потока фрагмента, поэтому статистика
+     * не пишется сразу в оператор, а публикуется через {@link #updateStats(OperatorContext)}.
+     * Для потоковых форматов ответ возвращается сразу после получения заголовков, соединение закрывает {@link Result#close()}
+     */
+    public Result execute(RestScanSpec spec) throws URISyntaxException, IOException, ExecutionSetupException {
+        return execute(spec, null);
     }
 
-    public Result execute(RestSubScan scan,
-                          OperatorContext context,
-                          DrillConfig drillConfig) throws URISyntaxException, IOException, ExecutionSetupException {
+    /**
+     * @param memory память под тело ответа; null - тело читается в heap (например, для lookup join'а)
+     */
+    public Result execute(RestScanSpec spec, ResponseMemory memory) throws URISyntaxException, IOException, ExecutionSetupException {
         Stopwatch stopwatch = Stopwatch.createStarted();
-        try (CloseableHttpClient client = HttpClientBuilder.create()
+        CloseableHttpClient client = HttpClientBuilder.create()
                 .useSystemProperties()
                 .setRetryHandler(new DefaultHttpRequestRetryHandler(0, false))
-                .build()) {
-
-            HttpUriRequest request = createRequest(config, scan.getSpec(), drillConfig);
-            try (CloseableHttpResponse response = client.execute(request)) {
-
-                ResponseHandler<String> responseHandler = new RestResponseHandler();
+                .build();
+        boolean streamed = false;
+        try {
+
+            HttpUriRequest request = createRequest(config, spec);
+            current = request;
+            if (aborted) {
+                request.abort();
+            }
+            CloseableHttpResponse response = client.execute(request);
+            try {
 
-                String body = responseHandler.handleResponse(response);
                 ContentType contentType = ContentType.getOrDefault(response.getEntity());
 
                 Map<String, String> headers = new HashMap<>();
@@ -104,7 +141,24 @@ public final class RequestHandler {
                     headers.put(header.getName(), header.getValue());
                 }
 
-                return new Result(contentType, body, headers);
+                if (config.getFormatOrDefault().getType().isStreamed()) {
+                    checkStatus(response);
+                    InputStream stream = response.getEntity() == null ? null : response.getEntity().getContent();
+                    streamed = true;
+                    return new Result(contentType, stream, headers, () -> close(response, client));
+                }
+
+                if (memory != null) {
+                    checkStatus(response);
+                    if (response.getEntity() == null || response.getEntity().getContent() == null) {
+                        return new Result(contentType, (ByteBuf) null, headers, null);
+                    }
+                    DrillBuf body = memory.read(response.getEntity().getContent(), response.getEntity().getContentLength(), spec.getQuery());
+                    return new Result(contentType, body, headers, () -> memory.release(body));
+                }
+
+                byte[] body = new RestResponseHandler().handleResponse(response);
+                return new Result(contentType, body == null ? null : Unpooled.wrappedBuffer(body), headers, null);
             } catch (HttpResponseException e) {
                 UserException.Builder builder = UserException.dataReadError(e)
                         .addContext("url", request.getURI().toString())
@@ -116,43 +170,73 @@ public final class RequestHandler {
                 }
 
                 throw builder.build(logger);
+            } finally {
+                if (!streamed) {
+                    response.close();
+                }
             }
 
         } catch (SQLException e) {
             throw new ExecutionSetupException(e);
         } finally {
-            long requestTime = stopwatch.stop().elapsed(TimeUnit.MILLISECONDS);
-            context.getStats().addLongStat(RestMetric.TIME_REQUEST, requestTime);
-
-            if (subqueryTime != 0) {
-                context.getStats().addLongStat(RestMetric.TIME_SUBQUERIES, subqueryTime);
+            current = null;
+            if (!streamed) {
+                client.close();
             }
+            requestTime += stopwatch.stop().elapsed(TimeUnit.MILLISECONDS);
         }
     }
 
-    private HttpUriRequest createRequest(RuntimeQueryConfig config,
-                                         RestScanSpec spec,
-                                         DrillConfig drillConfig) throws URISyntaxException, IOException, SQLException {
-
-        Map<String, ParameterValue> parameterValues = Collections.emptyMap();
-        if (StringUtils.isNotBlank(spec.getParameters())) {
-            parameterValues = RestRecordReader.MAPPER.readValue(spec.getParameters(),
-                    new TypeReference<Map<String, ParameterValue>>() {
-                    });
+    /**
+     * Прерывает выполняющийся запрос из другого потока, следующие запросы этого обработчика прерываются сразу
+     */
+    public void abort() {
+        aborted = true;
+        HttpUriRequest request = current;
+        if (request != null) {
+            request.abort();
         }
+    }
 
-        Map<String, Object> parameters = new HashMap<>();
-        for (Map.Entry<String, ParameterValue> entry : parameterValues.entrySet()) {
-            if (entry.getValue() != null && entry.getValue().getType() == ParameterValue.Type.QUERY) {
-                String sql = Objects.toString(entry.getValue().getValue(), null);
-                parameters.put(entry.getKey(), executeSingleColumnQuery(sql, drillConfig));
-            } else if (entry.getValue() != null && entry.getValue().getType() == ParameterValue.Type.SUBQUERY) {
-                String sql = Objects.toString(entry.getValue().getValue(), null);
-                parameters.putAll(executeSubQuery(sql, drillConfig).asMap());
-            } else {
-                parameters.put(entry.getKey(), entry.getValue() == null ? null : entry.getValue().getValue());
-            }
+    private static void checkStatus(CloseableHttpResponse response) throws IOException {
+        StatusLine statusLine = response.getStatusLine();
+        if (statusLine.getStatusCode() >= 300) {
+            EntityUtils.consume(response.getEntity());
+            throw new HttpResponseException(statusLine.getStatusCode(), statusLine.getReasonPhrase());
+        }
+    }
+
+    private static void close(CloseableHttpResponse response, CloseableHttpClient client) throws IOException {
+        try {
+            response.close();
+        } finally {
+            client.close();
         }
+    }
+
+    public long getRequestTime() {
+        return requestTime;
+    }
+
+    public void updateStats(OperatorContext context) {
+        context.getStats().addLongStat(RestMetric.TIME_REQUEST, requestTime);
+
+        if (subqueryTime.get() != 0) {
+            context.getStats().addLongStat(RestMetric.TIME_SUBQUERIES, subqueryTime.get());
+            context.getStats().addLongStat(RestMetric.TIME_SUBQUERIES_CRITICAL_PATH, subqueryCriticalPathTime);
+        }
+
+        if (parameterCacheHits.get() != 0) {
+            context.getStats().addLongStat(RestMetric.PARAMETER_CACHE_HITS, parameterCacheHits.get());
+        }
+    }
+
+    private HttpUriRequest createRequest(RuntimeQueryConfig config,
+                                         RestScanSpec spec) throws URISyntaxException, IOException, SQLException {
+
+        Map<String, ParameterValue> parameterValues = ParameterResolver.parse(spec.getParameters());
+
+        Map<String, Object> parameters = resolveParameters(parameterValues);
 
         // Так как при передаче параметров с помощью SUBQUERY у нас могут быть названия параметров в неправильном регистре,
         // то копируем значения для key.lowerCase() и модифицируем resolver в handlebars
@@ -183,15 +267,16 @@ public final class RequestHandler {
             }
         }
 
+        String mediaType = config.getFormatOrDefault().getType().getMediaType();
+        if (mediaType != null && request.getFirstHeader(HttpHeaders.ACCEPT) == null) {
+            //Сервис, не умеющий бинарный формат, может ответить json'ом - ридер выбирает декодер по Content-Type ответа
+            request.addHeader(HttpHeaders.ACCEPT, mediaType + ", application/json;q=0.5");
+        }
+
         if (config.getMethod() == HttpMethod.POST && request instanceof HttpPost) {
             HttpPost post = (HttpPost) request;
 
-            String body = null;
             if (StringUtils.isNotBlank(config.getBody())) {
-                body = HandlebarsHelper.merge(config.getBody(), parameters);
-            }
-
-            if (body != null) {
 
                 ContentType contentType = null;
                 try {
@@ -208,9 +293,11 @@ public final class RequestHandler {
                     charset = contentType.getCharset();
                 }
 
+                //Если в конфигурации задан Content-Encoding: gzip, то сжимаем тело
+                Header contentEncodingHeader = request.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+                boolean gzip = contentEncodingHeader != null && StringUtils.containsIgnoreCase(contentEncodingHeader.getValue(), "gzip");
 
-                //Не ставим Content-Type здесь, он будет установлен как заголовок
-                post.setEntity(new ExtendedByteArrayEntity(body.getBytes(charset), body));
+                post.setEntity(new TemplateEntity(config.getBody(), parameters, charset, gzip));
             }
         }
 
@@ -228,62 +315,96 @@ public final class RequestHandler {
         return result;
     }
 
-    private Object executeSingleColumnQuery(String sql, DrillConfig drillConfig) throws SQLException {
-        Preconditions.checkNotNull(sql, "Subquery sql is null");
-
-        List<Object> result = new ArrayList<>();
-
+    /**
+     * Выполняет параметры-подзапросы. Они независимы друг от друга, поэтому если их несколько,
+     * то выполняются одновременно
+     */
+    private Map<String, Object> resolveParameters(Map<String, ParameterValue> parameterValues) throws SQLException {
+        int queries = ParameterResolver.countQueries(parameterValues);
+        Map<String, Future<Object>> results = new HashMap<>();
         Stopwatch stopwatch = Stopwatch.createStarted();
+        try {
+            if (queries > 1) {
+                for (Map.Entry<String, ParameterValue> entry : parameterValues.entrySet()) {
+                    ParameterValue value = entry.getValue();
+                    if (value != null && value.getType() != ParameterValue.Type.VALUE) {
+                        results.put(entry.getKey(), subQueries.submit(() -> executeParameterQuery(entry.getKey(), value)));
+                    }
+                }
+            }
 
-        int port = drillConfig.getInt("drill.exec.rpc.user.server.port");
+            Map<String, Object> parameters = new HashMap<>();
+            for (Map.Entry<String, ParameterValue> entry : parameterValues.entrySet()) {
+                ParameterValue value = entry.getValue();
+                if (value == null || value.getType() == ParameterValue.Type.VALUE) {
+                    parameters.put(entry.getKey(), value == null ? null : value.getValue());
+                    continue;
+                }
 
-        try (Connection connection = DriverManager.getConnection("jdbc:drill:drillbit=127.0.0.1:" + port)) {
-            try (Statement statement = connection.createStatement()) {
-                try (ResultSet resultSet = statement.executeQuery(sql)) {
-                    while (resultSet.next()) {
-                        result.add(resultSet.getObject(1));
-                    }
+                Future<Object> future = results.get(entry.getKey());
+                Object result = future == null ? executeParameterQuery(entry.getKey(), value) : await(future);
+                if (value.getType() == ParameterValue.Type.SUBQUERY) {
+                    //Параметрами становятся колонки подзапроса
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> columns = (Map<String, Object>) result;
+                    parameters.putAll(columns);
+                } else {
+                    parameters.put(entry.getKey(), result);
                 }
             }
+            return parameters;
         } finally {
-            subqueryTime += stopwatch.stop().elapsed(TimeUnit.MILLISECONDS);
+            for (Future<Object> future : results.values()) {
+                future.cancel(true);
+            }
+            if (queries > 0) {
+                subqueryCriticalPathTime += stopwatch.stop().elapsed(TimeUnit.MILLISECONDS);
+            }
         }
-
-        return Collections.unmodifiableList(result);
     }
 
-    private ImmutableMultimap<String, Object> executeSubQuery(String sql, DrillConfig drillConfig) throws SQLException {
-        Preconditions.checkNotNull(sql, "Subquery sql is null");
-
-        ImmutableMultimap.Builder<String, Object> result = new ImmutableMultimap.Builder<>();
+    private Object executeParameterQuery(String name, ParameterValue value) throws SQLException {
+        String sql = Objects.toString(value.getValue(), null);
+        if (parameterCache != null) {
+            Object cached = parameterCache.get(userName, value.getType(), sql);
+            if (cached != null) {
+                parameterCacheHits.incrementAndGet();
+                return cached;
+            }
+        }
 
         Stopwatch stopwatch = Stopwatch.createStarted();
-
-        int port = drillConfig.getInt("drill.exec.rpc.user.server.port");
-
-        try (Connection connection = DriverManager.getConnection("jdbc:drill:drillbit=127.0.0.1:" + port)) {
-            try (Statement statement = connection.createStatement()) {
-                try (ResultSet resultSet = statement.executeQuery(sql)) {
-                    ResultSetMetaData metaData = resultSet.getMetaData();
-                    List<String> columns = new ArrayList<>(metaData.getColumnCount());
-                    for (int i = 1; i <= metaData.getColumnCount(); i++) {
-                        columns.add(metaData.getColumnName(i));
-                    }
-
-                    while (resultSet.next()) {
-                        for (String column : columns) {
-                            result.put(column, resultSet.getObject(column));
-                        }
-                    }
-                }
+        try {
+            Object result = value.getType() == ParameterValue.Type.SUBQUERY
+                    ? subQueries.executeSubQuery(sql).asMap()
+                    : subQueries.executeSingleColumnQuery(sql);
+            if (parameterCache != null) {
+                parameterCache.put(userName, value.getType(), sql, result);
             }
+            return result;
+        } catch (SQLException e) {
+            throw new SQLException(String.format("Query of parameter %s failed: %s", name, sql), e.getSQLState(), e);
         } finally {
-            subqueryTime += stopwatch.stop().elapsed(TimeUnit.MILLISECONDS);
+            subqueryTime.addAndGet(stopwatch.stop().elapsed(TimeUnit.MILLISECONDS));
         }
-
-        return result.build();
     }
 
+    private static Object await(Future<Object> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Parameter query was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
 
     private URI createURI(RuntimeQueryConfig config, Map<String, Object> parameters) throws URISyntaxException {
 
@@ -291,112 +412,183 @@ public final class RequestHandler {
         URI scanUri = new URI(localUri);
         if (!scanUri.isAbsolute()) {
             Preconditions.checkNotNull(config.getBaseUrl(), "config.baseUrl");
-            String baseUri = HandlebarsHelper.merge(config.getBaseUrl(), parameters);
-            scanUri = new URI(baseUri).resolve(scanUri);
+            URI baseUri = config.getBaseUri();
+            if (baseUri == null) {
+                baseUri = new URI(HandlebarsHelper.merge(config.getBaseUrl(), parameters));
+            }
+            scanUri = baseUri.resolve(scanUri);
         }
 
         return scanUri;
     }
 
+    /**
+     * Ответ сервиса: тело, прочитанное целиком (в heap или в памяти оператора), или открытый поток (для потоковых форматов).
+     */
     @SuppressWarnings("unused")
-    public final static class Result {
+    public final static class Result implements AutoCloseable {
         private final ContentType contentType;
-        private final String content;
+        private final ByteBuf body;
+        private final CountingInputStream stream;
         private final Map<String, String> headers;
+        private final Closeable connection;
+        private final Closeable release;
+        private Charset charset;
+        private String content;
 
 
+        /**
+         * @param release возвращает память тела, может быть null
+         */
         Result(ContentType contentType,
-               String content,
-               Map<String, String> headers) {
+               ByteBuf body,
+               Map<String, String> headers,
+               Closeable release) {
             this.contentType = contentType;
-            this.content = content;
+            this.body = body;
+            this.stream = null;
             this.headers = headers;
+            this.connection = null;
+            this.release = release;
+        }
+
+        Result(ContentType contentType,
+               InputStream stream,
+               Map<String, String> headers,
+               Closeable connection) {
+            this.contentType = contentType;
+            this.body = null;
+            this.stream = stream == null ? null : new CountingInputStream(stream);
+            this.headers = headers;
+            this.connection = connection;
+            this.release = null;
         }
 
         public ContentType getContentType() {
             return contentType;
         }
 
+        public boolean isStreamed() {
+            return connection != null;
+        }
+
+        /**
+         * @return тело ответа, раскодированное в {@link #getCharset()}; только для ответов, прочитанных целиком
+         */
         public String getContent() {
+            Preconditions.checkState(!isStreamed(), "Streamed response has no buffered content");
+            if (content == null && body != null) {
+                content = body.toString(getCharset());
+            }
             return content;
         }
 
-        public Map<String, String> getHeaders() {
-            return headers;
+        /**
+         * @return тело ответа как есть (от 0 до writerIndex), может быть null; только для ответов, прочитанных целиком.
+         * Действительно до {@link #close()}
+         */
+        public ByteBuf getBody() {
+            Preconditions.checkState(!isStreamed(), "Streamed response has no buffered body");
+            return body;
         }
-    }
 
-    private final static class RestResponseHandler extends AbstractResponseHandler<String> {
+        /**
+         * @return тело ответа потоком, может быть null. Поток потокового ответа можно прочитать только один раз
+         */
+        public InputStream getStream() {
+            if (isStreamed()) {
+                return stream;
+            }
+            return body == null ? null : new ByteBufInputStream(body.slice());
+        }
 
-        @Override
-        public String handleEntity(HttpEntity entity) throws IOException {
-            InputStream stream = entity.getContent();
-            if (stream == null) {
-                return null;
-            } else {
-                try {
-                    Args.check(entity.getContentLength() <= 2147483647L, "HTTP entity too large to be buffered in memory");
-                    return bodyAsString(IOUtils.toByteArray(stream), ContentType.getOrDefault(entity));
-                } finally {
-                    stream.close();
-                }
+        /**
+         * Определяется при первом обращении: для xml без charset в заголовках для этого разбирается декларация документа
+         */
+        public Charset getCharset() {
+            if (charset == null) {
+                charset = charsetOf(body == null ? null : new ByteBufInputStream(body.slice()), contentType);
             }
+            return charset;
         }
 
-        private String bodyAsString(byte[] content, ContentType contentType) {
-            if (content == null) {
-                return null;
+        /**
+         * @return размер тела ответа в байтах (для потокового ответа - сколько уже прочитано)
+         */
+        public long getContentLength() {
+            if (isStreamed()) {
+                return stream == null ? 0 : stream.getByteCount();
+            }
+            return body == null ? 0 : body.readableBytes();
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (connection != null) {
+                connection.close();
+            }
+            if (release != null) {
+                release.close();
             }
+        }
+    }
 
-            Charset charset = null;
-            if (contentType != null) {
-                charset = contentType.getCharset();
-                if (charset == null && Objects.equals(ContentType.TEXT_XML.getMimeType(), contentType.getMimeType())) {
-                    // если charset не передан, но у нас xml документ, то пытаемся посмотреть <?xml ..>
+    private static Charset charsetOf(InputStream content, ContentType contentType) {
+        Charset charset = null;
+        if (contentType != null) {
+            charset = contentType.getCharset();
+            if (charset == null && content != null && Objects.equals(ContentType.TEXT_XML.getMimeType(), contentType.getMimeType())) {
+                // если charset не передан, но у нас xml документ, то пытаемся посмотреть <?xml ..>
 
+                try {
+                    XMLStreamReader xmlStreamReader = XMLInputFactory.newFactory().createXMLStreamReader(content);
                     try {
-                        XMLStreamReader xmlStreamReader = XMLInputFactory.newFactory().createXMLStreamReader(new ByteArrayInputStream(content));
-                        try {
 
-                            String characterEncodingScheme = xmlStreamReader.getCharacterEncodingScheme();
-                            charset = Charset.forName(characterEncodingScheme);
+                        String characterEncodingScheme = xmlStreamReader.getCharacterEncodingScheme();
+                        charset = Charset.forName(characterEncodingScheme);
 
-                        } finally {
-                            xmlStreamReader.close();
-                        }
-                    } catch (XMLStreamException | UnsupportedCharsetException e) {
-                        logger.error("xml read error", e);
-                    }
-                }
-
-                if (charset == null) {
-                    ContentType byMimeType = ContentType.getByMimeType(contentType.getMimeType());
-                    if (byMimeType != null) {
-                        charset = byMimeType.getCharset();
+                    } finally {
+                        xmlStreamReader.close();
                     }
+                } catch (XMLStreamException | UnsupportedCharsetException e) {
+                    logger.error("xml read error", e);
                 }
             }
 
             if (charset == null) {
-                charset = HTTP.DEF_CONTENT_CHARSET;
+                ContentType byMimeType = ContentType.getByMimeType(contentType.getMimeType());
+                if (byMimeType != null) {
+                    charset = byMimeType.getCharset();
+                }
             }
-
-            return new String(content, charset);
         }
-    }
 
-    private final static class ExtendedByteArrayEntity extends ByteArrayEntity {
+        if (charset == null) {
+            charset = HTTP.DEF_CONTENT_CHARSET;
+        }
 
-        private final String str;
+        return charset;
+    }
 
-        public ExtendedByteArrayEntity(byte[] bytes, String str) {
-            super(bytes);
-            this.str = str;
-        }
+    private final static class RestResponseHandler extends AbstractResponseHandler<byte[]> {
 
         @Override
-        public String toString() {
-            return str;
+        public byte[] handleEntity(HttpEntity entity) throws IOException {
+            InputStream stream = entity.getContent();
+            if (stream == null) {
+                return null;
+            } else {
+                try {
+                    Args.check(entity.getContentLength() <= 2147483647L, "HTTP entity too large to be buffered in memory");
+                    return IOUtils.toByteArray(stream);
+                } finally {
+                    stream.close();
+                }
+            }
         }
     }
 }
@@ -0,0 +1,243 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import org.apache.drill.shaded.guava.com.google.common.base.Preconditions;
+import org.apache.drill.common.exceptions.ExecutionSetupException;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Очередь запросов одного фрагмента. Запросы выполняются заранее (не более {@code concurrency} одновременно),
+ * а ридеры забирают результаты строго по порядку. Запросы, не прошедшие {@code filter}, не выполняются.
+ * <p>
+ * Предвыборка начинается только с {@link Request#await()} первого ридера, т.е. из его {@code setup()}.
+ * ScanBatch закрывает лишь ридер, который успел начать, поэтому без начатого ридера запросов в полете нет
+ * и закрывать очередь не нужно.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public final class RequestQueue {
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RequestQueue.class);
+
+    private final ExecutorService executor;
+    private final List<Request> requests;
+    private final int concurrency;
+    private final Predicate<RestScanSpec> filter;
+    private final ResponseMemory memory;
+    private boolean closed = false;
+
+    /**
+     * @param memory память под тела ответов, прочитанных целиком
+     */
+    RequestQueue(ExecutorService executor,
+                 Supplier<RequestHandler> handlers,
+                 List<RestScanSpec> specs,
+                 int concurrency,
+                 Predicate<RestScanSpec> filter,
+                 ResponseMemory memory) {
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.filter = filter;
+        this.memory = memory;
+        this.requests = new ArrayList<>(specs.size());
+        for (int i = 0; i < specs.size(); i++) {
+            requests.add(new Request(i, specs.get(i), handlers.get()));
+        }
+    }
+
+    public int size() {
+        return requests.size();
+    }
+
+    public Request get(int index) {
+        return requests.get(index);
+    }
+
+    /**
+     * Отменяет все еще не начатые запросы, прерывает выполняющиеся и освобождает полученные, но не прочитанные ответы.
+     * Дожидается выполняющихся запросов: их буферы должны вернуться в аллокатор оператора до его закрытия
+     */
+    public void close() {
+        List<Request> running = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Request request : requests) {
+                if (request.future == null || request.consumed) {
+                    continue;
+                }
+                if (request.started) {
+                    request.handler.abort();
+                    running.add(request);
+                } else {
+                    request.future.cancel(false);
+                }
+            }
+        }
+
+        for (Request request : running) {
+            request.closeResult();
+        }
+    }
+
+    private synchronized void submit(int index) {
+        if (closed || concurrency <= 1) {
+            return;
+        }
+
+        int end = Math.min(requests.size(), index + concurrency);
+        for (int i = index; i < end; i++) {
+            Request request = requests.get(i);
+            if (request.future == null && !request.skip()) {
+                request.future = executor.submit(request::execute);
+            }
+        }
+    }
+
+    public final class Request {
+        private final int index;
+        private final RestScanSpec spec;
+        private final RequestHandler handler;
+        private Future<RequestHandler.Result> future;
+        private boolean skipped = false;
+        private boolean consumed = false;
+        private boolean started = false;
+
+        private Request(int index, RestScanSpec spec, RequestHandler handler) {
+            this.index = index;
+            this.spec = spec;
+            this.handler = handler;
+        }
+
+        public RestScanSpec getSpec() {
+            return spec;
+        }
+
+        public RequestHandler getHandler() {
+            return handler;
+        }
+
+        public boolean isSkipped() {
+            return skipped;
+        }
+
+        private RequestHandler.Result execute() throws Exception {
+            synchronized (RequestQueue.this) {
+                if (closed) {
+                    return null;
+                }
+                started = true;
+            }
+            RequestHandler.Result result = handler.execute(spec, memory);
+            synchronized (RequestQueue.this) {
+                if (!closed) {
+                    return result;
+                }
+            }
+            //Очередь закрыли, пока шел запрос - ответ уже никто не прочитает
+            result.close();
+            return null;
+        }
+
+        private void closeResult() {
+            try {
+                RequestHandler.Result result = future.get();
+                if (result != null) {
+                    result.close();
+                }
+            } catch (Exception e) {
+                logger.debug("Unable to close response of REST query {}", spec.getQuery(), e);
+            }
+        }
+
+        private boolean skip() {
+            if (!skipped && !filter.test(spec)) {
+                skipped = true;
+            }
+            return skipped;
+        }
+
+        /**
+         * Возвращает результат запроса, если нужно - дожидается его. Заодно сдвигает окно предвыборки.
+         *
+         * @return null, если запрос отброшен фильтром
+         */
+        public RequestHandler.Result await() throws IOException, URISyntaxException, ExecutionSetupException {
+            Future<RequestHandler.Result> future;
+            synchronized (RequestQueue.this) {
+                Preconditions.checkState(!closed, "Request queue is closed");
+                submit(index);
+                future = this.future;
+                if (future == null) {
+                    consumed = true;
+                    if (skip()) {
+                        return null;
+                    }
+                }
+            }
+
+            if (future == null) {
+                //Без предвыборки выполняем запрос в потоке фрагмента
+                return handler.execute(spec, memory);
+            }
+
+            //Ответ принадлежит ридеру только после get(): если ожидание прервут, его освободит close()
+            RequestHandler.Result result;
+            try {
+                result = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExecutionSetupException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof URISyntaxException) {
+                    throw (URISyntaxException) cause;
+                } else if (cause instanceof ExecutionSetupException) {
+                    throw (ExecutionSetupException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new ExecutionSetupException(cause);
+            }
+
+            synchronized (RequestQueue.this) {
+                if (!closed) {
+                    consumed = true;
+                    return result;
+                }
+            }
+            //Очередь закрыли, пока ждали ответ - close() уже освобождает его
+            throw new ExecutionSetupException("Request queue is closed");
+        }
+    }
+}
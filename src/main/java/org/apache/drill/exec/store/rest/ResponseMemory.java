@@ -0,0 +1,228 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.exec.exception.OutOfMemoryException;
+import org.apache.drill.exec.memory.BufferAllocator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Память под тела ответов одного скана. Тело читается из соединения прямо в {@link DrillBuf} аллокатора оператора,
+ * поэтому учитывается drill'ом, и ограничивается лимитами на оператор и на запрос (все сканы запроса на drillbit'е).
+ * Ответ, который не помещается в лимит, прерывается сразу: по Content-Length - до чтения тела, иначе - на первом превышении.
+ * Учитывается реально выделенная память, с округлением аллокатора.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public final class ResponseMemory {
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ResponseMemory.class);
+
+    /**
+     * Кусок тела без Content-Length, степень двойки - аллокатор его не округляет
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final BufferAllocator allocator;
+    private final ConcurrentMap<String, Long> queries;
+    private final String queryId;
+    private final long operatorLimit;
+    private final long queryLimit;
+    private final AtomicLong operatorUsed = new AtomicLong();
+
+    /**
+     * @param queries занятая память по id запросов, общая для всех сканов плагина
+     */
+    ResponseMemory(BufferAllocator allocator,
+                   ConcurrentMap<String, Long> queries,
+                   String queryId,
+                   long operatorLimit,
+                   long queryLimit) {
+        this.allocator = allocator;
+        this.queries = queries;
+        this.queryId = queryId;
+        this.operatorLimit = operatorLimit;
+        this.queryLimit = queryLimit;
+    }
+
+    /**
+     * Читает тело ответа целиком. Буфер нужно вернуть через {@link #release(DrillBuf)}
+     *
+     * @param contentLength размер из заголовков или -1
+     * @param query         имя запроса для сообщений об ошибках
+     */
+    DrillBuf read(InputStream stream, long contentLength, String query) throws IOException {
+        if (contentLength > Integer.MAX_VALUE) {
+            throw tooLarge(query);
+        }
+
+        List<DrillBuf> chunks = new ArrayList<>();
+        try {
+            DrillBuf chunk = allocate(contentLength > 0 ? (int) contentLength : CHUNK_SIZE, query);
+            chunks.add(chunk);
+            while (true) {
+                if (chunk.writableBytes() == 0) {
+                    //Буфер по Content-Length заполнен - обычно это конец ответа
+                    int next = stream.read();
+                    if (next < 0) {
+                        break;
+                    }
+
+                    //Content-Length не было или он неверный - дочитываем кусками, лимиты проверяются по прочитанному
+                    chunk = allocate(CHUNK_SIZE, query);
+                    chunks.add(chunk);
+                    chunk.writeByte(next);
+                }
+                if (chunk.writeBytes(stream, chunk.writableBytes()) < 0) {
+                    break;
+                }
+            }
+            return chunks.size() == 1 ? chunks.remove(0) : join(chunks, query);
+        } catch (IOException | RuntimeException e) {
+            for (DrillBuf chunk : chunks) {
+                release(chunk);
+            }
+            throw e;
+        }
+    }
+
+    void release(DrillBuf buffer) {
+        long size = buffer.capacity();
+        buffer.release();
+        unreserve(size);
+    }
+
+    /**
+     * Склеивает куски в один буфер по размеру тела. Итоговый буфер учитывается вместо кусков, поэтому на время
+     * копирования оба не резервируются: в лимит должно поместиться тело, а не его временная копия.
+     * Прочитанные куски освобождаются
+     */
+    private DrillBuf join(List<DrillBuf> chunks, String query) {
+        long size = 0;
+        long reserved = 0;
+        for (DrillBuf chunk : chunks) {
+            size += chunk.readableBytes();
+            reserved += chunk.capacity();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw tooLarge(query);
+        }
+
+        DrillBuf body = buffer((int) size, query);
+        //Округление аллокатора сверх того, что уже занято кусками, тоже должно поместиться в лимит
+        long extra = body.capacity() - reserved;
+        if (extra > 0) {
+            try {
+                reserve(extra, query);
+            } catch (UserException e) {
+                body.release();
+                throw e;
+            }
+        }
+
+        for (Iterator<DrillBuf> iterator = chunks.iterator(); iterator.hasNext(); ) {
+            DrillBuf chunk = iterator.next();
+            body.writeBytes(chunk);
+            chunk.release();
+            iterator.remove();
+        }
+        if (extra < 0) {
+            unreserve(-extra);
+        }
+        return body;
+    }
+
+    private DrillBuf allocate(int size, String query) {
+        reserve(size, query);
+        DrillBuf buffer;
+        try {
+            buffer = buffer(size, query);
+        } catch (UserException e) {
+            unreserve(size);
+            throw e;
+        }
+        //Аллокатор может округлить размер вверх, округление тоже в лимите
+        if (buffer.capacity() > size) {
+            try {
+                reserve(buffer.capacity() - size, query);
+            } catch (UserException e) {
+                buffer.release();
+                unreserve(size);
+                throw e;
+            }
+        }
+        return buffer;
+    }
+
+    private DrillBuf buffer(int size, String query) {
+        try {
+            return allocator.buffer(size);
+        } catch (OutOfMemoryException e) {
+            throw UserException.memoryError(e)
+                    .message("Not enough memory for response of REST query %s", query)
+                    .addContext("requested", size)
+                    .build(logger);
+        }
+    }
+
+    private void reserve(long size, String query) {
+        if (operatorUsed.addAndGet(size) > operatorLimit) {
+            operatorUsed.addAndGet(-size);
+            throw limitError(query, RestStoragePluginConfig.RESPONSE_MEMORY_PER_OPERATOR, operatorLimit);
+        }
+        try {
+            queries.compute(queryId, (id, used) -> {
+                long total = (used == null ? 0 : used) + size;
+                if (total > queryLimit) {
+                    throw limitError(query, RestStoragePluginConfig.RESPONSE_MEMORY_PER_QUERY, queryLimit);
+                }
+                return total;
+            });
+        } catch (UserException e) {
+            operatorUsed.addAndGet(-size);
+            throw e;
+        }
+    }
+
+    private void unreserve(long size) {
+        operatorUsed.addAndGet(-size);
+        queries.computeIfPresent(queryId, (id, used) -> used - size <= 0 ? null : used - size);
+    }
+
+    private static UserException tooLarge(String query) {
+        return UserException.memoryError()
+                .message("Response of REST query %s is larger than %d bytes", query, Integer.MAX_VALUE)
+                .build(logger);
+    }
+
+    private static UserException limitError(String query, String setting, long limit) {
+        return UserException.memoryError()
+                .message("Response of REST query %s exceeds the memory limit of %d bytes, see the '%s' plugin setting", query, limit, setting)
+                .build(logger);
+    }
+}
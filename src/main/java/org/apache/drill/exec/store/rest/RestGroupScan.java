@@ -19,20 +19,35 @@ package org.apache.drill.exec.store.rest;
 
 import com.fasterxml.jackson.annotation.*;
 import org.apache.drill.shaded.guava.com.google.common.base.Preconditions;
+import org.apache.drill.shaded.guava.com.google.common.collect.ImmutableList;
+import org.apache.drill.shaded.guava.com.google.common.collect.ListMultimap;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.drill.common.exceptions.ExecutionSetupException;
+import org.apache.drill.common.exceptions.UserException;
 import org.apache.drill.common.expression.SchemaPath;
+import org.apache.drill.exec.physical.EndpointAffinity;
 import org.apache.drill.exec.physical.PhysicalOperatorSetupException;
 import org.apache.drill.exec.physical.base.AbstractGroupScan;
 import org.apache.drill.exec.physical.base.PhysicalOperator;
 import org.apache.drill.exec.physical.base.ScanStats;
 import org.apache.drill.exec.physical.base.SubScan;
+import org.apache.drill.exec.planner.fragment.DistributionAffinity;
 import org.apache.drill.exec.proto.CoordinationProtos;
 import org.apache.drill.exec.store.StoragePluginRegistry;
+import org.apache.drill.exec.store.rest.config.RuntimeQueryConfig;
+import org.apache.drill.exec.store.rest.query.ParameterResolver;
 
 import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * Скан REST таблицы. Каждый {@link RestScanSpec} из {@link #getSpecs()} - отдельный запрос (work unit),
+ * запросы распределяются между minor фрагментами в {@link #applyAssignments(List)}.
+ *
  * @author Oleg Zinoviev
  * @since 16.06.2017.
  */
@@ -40,27 +55,45 @@ import java.util.List;
 @SuppressWarnings("WeakerAccess")
 public class RestGroupScan extends AbstractGroupScan {
 
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RestGroupScan.class);
+
     private static final ScanStats HUGE_TABLE = new ScanStats(ScanStats.GroupScanProperty.NO_EXACT_ROW_COUNT, 1000L, 10.0f, 10.0f);
+    /**
+     * Конечная, чтобы без альтернативы планировщик выбрал скан и пользователь получил понятную ошибку, а не CannotPlanException
+     */
+    private static final ScanStats LOOKUP_ONLY = new ScanStats(ScanStats.GroupScanProperty.NO_EXACT_ROW_COUNT, 1_000_000_000L, 1e12f, 1e12f);
 
-    private final RestScanSpec spec;
+    private final List<RestScanSpec> specs;
     private List<SchemaPath> columns;
     private final RestStoragePlugin storagePlugin;
     private final RestStoragePluginConfig storagePluginConfig;
     private final boolean pushedDown;
+    /**
+     * Результаты SQL параметров, общие для всех сканов, выведенных из одного скана таблицы при планировании
+     * запроса: правила pushdown'а срабатывают по нескольку раз, а каждый SQL должен выполниться один раз
+     */
+    private final AtomicReference<ParameterResolver> resolver;
+    private ListMultimap<Integer, RestScanSpec> assignments;
 
     @JsonCreator
     private RestGroupScan(@JsonProperty("userName") String userName,
-                         @JsonProperty("spec") RestScanSpec restScanSpec,
+                         @JsonProperty("specs") List<RestScanSpec> specs,
+                         @JsonProperty("spec") RestScanSpec legacySpec,
                          @JsonProperty("storagePluginConfig") RestStoragePluginConfig storagePluginConfig,
                          @JsonProperty("columns") List<SchemaPath> columns,
                          @JsonProperty("pushedDown") boolean pushedDown,
                          @JacksonInject StoragePluginRegistry pluginRegistry) throws IOException, ExecutionSetupException {
-        this (userName, (RestStoragePlugin) pluginRegistry.getPlugin(storagePluginConfig), restScanSpec, columns, pushedDown);
+        this (userName, (RestStoragePlugin) pluginRegistry.getPlugin(storagePluginConfig), RestScanSpec.listOf(specs, legacySpec), columns, pushedDown);
     }
 
     @JsonProperty
-    public RestScanSpec getSpec() {
-        return spec;
+    public List<RestScanSpec> getSpecs() {
+        return specs;
+    }
+
+    @JsonIgnore
+    public String getQuery() {
+        return specs.get(0).getQuery();
     }
 
     @JsonProperty
@@ -85,24 +118,37 @@ public class RestGroupScan extends AbstractGroupScan {
 
     public RestGroupScan(String userName,
                          RestStoragePlugin plugin,
-                         RestScanSpec spec,
+                         List<RestScanSpec> specs,
                          List<SchemaPath> columns,
                          boolean pushedDown) {
+        this(userName, plugin, specs, columns, pushedDown, new AtomicReference<>());
+    }
+
+    private RestGroupScan(String userName,
+                          RestStoragePlugin plugin,
+                          List<RestScanSpec> specs,
+                          List<SchemaPath> columns,
+                          boolean pushedDown,
+                          AtomicReference<ParameterResolver> resolver) {
         super(userName);
+        Preconditions.checkArgument(specs != null && !specs.isEmpty(), "specs cannot be empty");
         this.storagePlugin = plugin;
         this.storagePluginConfig = storagePlugin.getConfig();
-        this.spec = spec;
+        this.specs = ImmutableList.copyOf(specs);
         this.columns = columns == null ? ALL_COLUMNS : columns;
         this.pushedDown = pushedDown;
+        this.resolver = resolver;
     }
 
     public RestGroupScan(RestGroupScan that) {
         super(that);
         this.storagePlugin = that.storagePlugin;
         this.storagePluginConfig = that.storagePluginConfig;
-        this.spec = that.spec;
+        this.specs = that.specs;
         this.columns = that.columns;
         this.pushedDown = that.pushedDown;
+        this.resolver = that.resolver;
+        this.assignments = that.assignments;
     }
 
     @Override
@@ -112,19 +158,206 @@ public class RestGroupScan extends AbstractGroupScan {
         return scan;
     }
 
+    /**
+     * Создает скан таблицы с окончательным списком запросов: запросы с fan-out разбиваются сразу,
+     * чтобы ширина скана, affinity и статистика видели реальное число запросов
+     */
+    public static RestGroupScan create(String userName,
+                                       RestStoragePlugin plugin,
+                                       List<RestScanSpec> specs,
+                                       List<SchemaPath> columns,
+                                       boolean pushedDown) {
+        return create(userName, plugin, specs, columns, pushedDown, new AtomicReference<>());
+    }
+
+    /**
+     * Скан с параметрами, проброшенными из фильтра. Результаты SQL параметров общие с этим сканом
+     */
+    public RestGroupScan pushDown(List<RestScanSpec> pushedSpecs) {
+        return create(getUserName(), storagePlugin, pushedSpecs, columns, true, resolver);
+    }
+
+    private static RestGroupScan create(String userName,
+                                        RestStoragePlugin plugin,
+                                        List<RestScanSpec> specs,
+                                        List<SchemaPath> columns,
+                                        boolean pushedDown,
+                                        AtomicReference<ParameterResolver> resolver) {
+        RestGroupScan scan = new RestGroupScan(userName, plugin, specs, columns, pushedDown, resolver);
+        RuntimeQueryConfig runtimeConfig = plugin.getQueryCatalog().get(scan.getQuery());
+        if (runtimeConfig.getFanOut() == null) {
+            return scan;
+        }
+
+        //Значения из SQL параметров можно разбить, только выполнив SQL при планировании - если это разрешено.
+        //Иначе разбиваются только заданные значения (например, из IN фильтра), а SQL выполнят фрагменты
+        List<RestScanSpec> plannedSpecs = plugin.getConfig().isResolveParametersAtPlanning()
+                ? scan.resolveParameters(specs)
+                : specs;
+        return new RestGroupScan(userName, plugin, chunk(plannedSpecs, runtimeConfig), columns, pushedDown, resolver);
+    }
+
     @Override
-    public void applyAssignments(List<CoordinationProtos.DrillbitEndpoint> list) throws PhysicalOperatorSetupException {
-        //Ассаймент к нодам дрила не поддерживается
+    public void applyAssignments(List<CoordinationProtos.DrillbitEndpoint> endpoints) throws PhysicalOperatorSetupException {
+        Preconditions.checkArgument(!endpoints.isEmpty(), "endpoints cannot be empty");
+        Preconditions.checkArgument(endpoints.size() <= specs.size(),
+                "Incoming endpoints %s is greater than number of requests %s", endpoints.size(), specs.size());
+        //SQL параметров выполняется только для выбранного плана, результаты уже выполненного при разбиении SQL переиспользуются
+        List<RestScanSpec> plannedSpecs = storagePluginConfig.isResolveParametersAtPlanning() ? resolveParameters(specs) : specs;
+        this.assignments = RestScanAssigner.assign(endpoints, plannedSpecs, this::estimateCost);
+    }
+
+    /**
+     * Выполняет SQL параметров один раз на весь запрос, фрагменты получают уже готовые значения
+     */
+    private List<RestScanSpec> resolveParameters(List<RestScanSpec> specs) {
+        ParameterResolver parameterResolver = resolver.get();
+        if (parameterResolver == null) {
+            parameterResolver = new ParameterResolver(storagePlugin.getSubQueryExecutor(),
+                    storagePlugin.getParameterCache(getQuery(), storagePlugin.getQueryCatalog().get(getQuery())),
+                    getUserName());
+            if (!resolver.compareAndSet(null, parameterResolver)) {
+                parameterResolver = resolver.get();
+            }
+        }
+
+        List<RestScanSpec> result = new ArrayList<>(specs.size());
+        for (RestScanSpec spec : specs) {
+            try {
+                result.add(new RestScanSpec(spec.getQuery(), parameterResolver.resolve(spec.getParameters())));
+            } catch (IOException | SQLException e) {
+                throw UserException.planError(e)
+                        .message("Unable to resolve parameters %s of REST query %s", spec.getParameters(), spec.getQuery())
+                        .build(logger);
+            }
+        }
+        return result;
+    }
+
+    private static List<RestScanSpec> chunk(List<RestScanSpec> specs, RuntimeQueryConfig runtimeConfig) {
+        List<RestScanSpec> result = new ArrayList<>(specs.size());
+        for (RestScanSpec spec : specs) {
+            try {
+                result.addAll(RestScanChunker.chunk(spec, runtimeConfig));
+            } catch (IOException e) {
+                throw UserException.planError(e)
+                        .message("Unable to split parameters %s of REST query %s", spec.getParameters(), spec.getQuery())
+                        .build(logger);
+            }
+        }
+        return result;
     }
 
     @Override
-    public SubScan getSpecificScan(int i) throws ExecutionSetupException {
-        return new RestSubScan(getUserName(), spec, storagePlugin);
+    public SubScan getSpecificScan(int minorFragmentId) throws ExecutionSetupException {
+        Preconditions.checkState(assignments != null, "applyAssignments must be called before getSpecificScan");
+        List<RestScanSpec> fragmentSpecs = assignments.get(minorFragmentId);
+        Preconditions.checkArgument(!fragmentSpecs.isEmpty(), "No requests assigned to minor fragment %s", minorFragmentId);
+        if (isLookupOnly()) {
+            throw UserException.unsupportedError()
+                    .message("Column %s can only be used as the key of an inner or left join of REST query %s with another table",
+                            storagePlugin.getLookupKey(), getQuery())
+                    .build(logger);
+        }
+        long initialAllocation = RestSubScan.estimateInitialAllocation(storagePlugin.getStatistics().get(getQuery()));
+        return new RestSubScan(getUserName(), fragmentSpecs, initialAllocation, storagePlugin);
     }
 
     @Override
     public int getMaxParallelizationWidth() {
-        return 1;
+        return specs.size();
+    }
+
+    @Override
+    public int getMinParallelizationWidth() {
+        // Запросы к REST сервисам дорогие, поэтому не даем планировщику схлопнуть скан в один фрагмент,
+        // если запросов хватает на весь кластер
+        int nodes = Math.max(1, getEgressEndpoints().size());
+        return Math.min(specs.size(), nodes * storagePluginConfig.getScanWidthPerNode());
+    }
+
+    @Override
+    public List<EndpointAffinity> getOperatorAffinity() {
+        if (storagePluginConfig.getEgressDrillbits().isEmpty()) {
+            return super.getOperatorAffinity();
+        }
+
+        return egressAffinities(getEgressEndpoints(), specs.size());
+    }
+
+    /**
+     * При HARD affinity каждый эндпоинт из списка обязательно получает фрагмент, а фрагментов не больше,
+     * чем запросов - поэтому эндпоинтов тоже берем не больше, чем запросов
+     */
+    static List<EndpointAffinity> egressAffinities(Collection<CoordinationProtos.DrillbitEndpoint> egress, int requests) {
+        List<EndpointAffinity> affinities = new ArrayList<>(Math.min(egress.size(), requests));
+        for (CoordinationProtos.DrillbitEndpoint endpoint : egress) {
+            if (affinities.size() >= requests) {
+                break;
+            }
+            affinities.add(new EndpointAffinity(endpoint, 1.0, true, Integer.MAX_VALUE));
+        }
+        return affinities;
+    }
+
+    @Override
+    public DistributionAffinity getDistributionAffinity() {
+        //Если задан список drillbit'ов с выходом наружу, то другие ноды использовать нельзя
+        return storagePluginConfig.getEgressDrillbits().isEmpty()
+                ? super.getDistributionAffinity()
+                : DistributionAffinity.HARD;
+    }
+
+    private Collection<CoordinationProtos.DrillbitEndpoint> getEgressEndpoints() {
+        Collection<CoordinationProtos.DrillbitEndpoint> bits = storagePlugin.getContext().getBits();
+        List<String> egress = storagePluginConfig.getEgressDrillbits();
+        if (egress.isEmpty()) {
+            return bits;
+        }
+
+        List<CoordinationProtos.DrillbitEndpoint> result = new ArrayList<>();
+        for (CoordinationProtos.DrillbitEndpoint endpoint : bits) {
+            String hostAndPort = endpoint.getAddress() + ":" + endpoint.getUserPort();
+            for (String host : egress) {
+                if (StringUtils.equalsIgnoreCase(host, endpoint.getAddress()) || StringUtils.equalsIgnoreCase(host, hostAndPort)) {
+                    result.add(endpoint);
+                    break;
+                }
+            }
+        }
+
+        if (result.isEmpty()) {
+            throw UserException.resourceError()
+                    .message("None of egress drillbits %s of REST storage plugin %s is online", egress, storagePlugin.getName())
+                    .build(logger);
+        }
+        return result;
+    }
+
+    /**
+     * Оценочная стоимость запроса: сам HTTP запрос плюс по одному запросу в Drill на каждый параметр-подзапрос
+     */
+    private double estimateCost(RestScanSpec spec) {
+        double cost = 1.0;
+        try {
+            cost += ParameterResolver.countQueries(ParameterResolver.parse(spec.getParameters()));
+        } catch (IOException e) {
+            logger.debug("Unable to parse request parameters {}", spec.getParameters(), e);
+        }
+        return cost;
+    }
+
+    /**
+     * @return true, если скан читает колонку ключа lookup join'а, т.е. его должен был заменить lookup join
+     */
+    @JsonIgnore
+    public boolean isLookupOnly() {
+        for (SchemaPath column : columns) {
+            if (column.isSimplePath() && storagePlugin.getLookupKey().equalsIgnoreCase(column.getRootSegmentPath())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -134,8 +367,8 @@ public class RestGroupScan extends AbstractGroupScan {
 
     @Override
     public String toString() {
-        return "RestGroupScan [RestScanSpec="
-                + spec
+        return "RestGroupScan [specs="
+                + specs
                 + ", columns="
                 + columns + "]";
     }
@@ -153,10 +386,30 @@ public class RestGroupScan extends AbstractGroupScan {
 
     @Override
     public ScanStats getScanStats() {
-        if (pushedDown) {
-            return ScanStats.TRIVIAL_TABLE;
+        if (isLookupOnly()) {
+            //Такой скан выполнять нельзя: план с lookup join'ом должен выигрывать всегда
+            return LOOKUP_ONLY;
+        }
+
+        QueryStatistics statistics = storagePlugin.getStatistics().get(getQuery());
+        if (statistics != null && statistics.getRequests() > 0) {
+            //Каждое ожидание ответа сервиса (мс) считаем единицей cpu стоимости
+            double rows = Math.max(1.0, statistics.getRows()) * specs.size();
+            double latency = statistics.getLatencyPercentile(0.5) * (double) specs.size();
+            return new ScanStats(ScanStats.GroupScanProperty.NO_EXACT_ROW_COUNT,
+                    (long) Math.ceil(rows),
+                    (float) (rows + latency),
+                    (float) (statistics.getBytes() * specs.size()));
+        }
+
+        ScanStats requestStats = pushedDown ? ScanStats.TRIVIAL_TABLE : HUGE_TABLE;
+        if (specs.size() == 1) {
+            return requestStats;
         }
-        return HUGE_TABLE;
+        return new ScanStats(ScanStats.GroupScanProperty.NO_EXACT_ROW_COUNT,
+                requestStats.getRecordCount() * specs.size(),
+                requestStats.getCpuCost() * specs.size(),
+                requestStats.getDiskCost() * specs.size());
     }
 
 }
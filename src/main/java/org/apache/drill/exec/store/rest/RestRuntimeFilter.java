@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.exec.expr.fn.impl.XXHash;
+import org.apache.drill.exec.ops.ExecutorFragmentContext;
+import org.apache.drill.exec.work.filter.BloomFilter;
+import org.apache.drill.exec.work.filter.RuntimeFilterWritable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Проверяет запрос по runtime фильтру hash join'а, в котором REST таблица - probe сторона
+ * с ключом по колонке параметров. Запрос, параметры которого не прошли bloom фильтр,
+ * не может дать строк для join'а и не выполняется.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class RestRuntimeFilter implements Predicate<RestScanSpec> {
+
+    /**
+     * Seed, с которым drill считает hash64 ключей при построении runtime фильтра
+     */
+    private static final long HASH_SEED = 0;
+
+    private final ExecutorFragmentContext context;
+    private final String parameterColumn;
+    private DrillBuf buffer;
+
+    RestRuntimeFilter(ExecutorFragmentContext context, String parameterColumn) {
+        this.context = context;
+        this.parameterColumn = parameterColumn;
+    }
+
+    /**
+     * @return false, если запрос гарантированно не пройдет фильтр
+     */
+    @Override
+    public boolean test(RestScanSpec spec) {
+        if (spec.getParameters() == null) {
+            return true;
+        }
+
+        //Фильтр приходит асинхронно после построения build стороны, до этого пропускаем все
+        RuntimeFilterWritable runtimeFilter = context.getRuntimeFilter();
+        if (runtimeFilter == null) {
+            return true;
+        }
+
+        List<String> probeFields = runtimeFilter.getRuntimeFilterBDef().getProbeFieldsList();
+        List<BloomFilter> bloomFilters = runtimeFilter.unwrap();
+        for (int i = 0; i < probeFields.size() && i < bloomFilters.size(); i++) {
+            if (parameterColumn.equalsIgnoreCase(probeFields.get(i))) {
+                return bloomFilters.get(i).find(hash(spec.getParameters()));
+            }
+        }
+        return true;
+    }
+
+    private long hash(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (buffer == null) {
+            buffer = context.getManagedBuffer(bytes.length);
+        }
+        buffer = buffer.reallocIfNeeded(bytes.length);
+        buffer.setBytes(0, bytes);
+        return XXHash.hash64(0, bytes.length, buffer, HASH_SEED);
+    }
+}
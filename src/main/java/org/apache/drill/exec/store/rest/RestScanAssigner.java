@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import org.apache.drill.shaded.guava.com.google.common.collect.ArrayListMultimap;
+import org.apache.drill.shaded.guava.com.google.common.collect.ListMultimap;
+import org.apache.drill.exec.proto.CoordinationProtos.DrillbitEndpoint;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Раскладывает запросы по minor фрагментам с учетом их оценочной стоимости.
+ * Сначала выравнивается суммарная нагрузка на drillbit (исходящий трафик идет с ноды),
+ * затем - нагрузка на фрагменты внутри ноды.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class RestScanAssigner {
+
+    private RestScanAssigner() {
+    }
+
+    static ListMultimap<Integer, RestScanSpec> assign(List<DrillbitEndpoint> endpoints,
+                                                      List<RestScanSpec> specs,
+                                                      ToDoubleFunction<RestScanSpec> cost) {
+        Map<DrillbitEndpoint, List<Integer>> fragmentsByNode = new LinkedHashMap<>();
+        for (int i = 0; i < endpoints.size(); i++) {
+            fragmentsByNode.computeIfAbsent(endpoints.get(i), e -> new ArrayList<>()).add(i);
+        }
+
+        //Стоимость считается один раз на запрос: она может разбирать параметры, а запросов после fan-out тысячи
+        double[] costs = new double[specs.size()];
+        List<Integer> sorted = new ArrayList<>(specs.size());
+        for (int i = 0; i < specs.size(); i++) {
+            costs[i] = cost.applyAsDouble(specs.get(i));
+            sorted.add(i);
+        }
+        sorted.sort(Comparator.comparingDouble((Integer i) -> costs[i]).reversed());
+
+        double[] fragmentLoad = new double[endpoints.size()];
+        Map<DrillbitEndpoint, Double> nodeLoad = new HashMap<>();
+        ListMultimap<Integer, RestScanSpec> assignments = ArrayListMultimap.create();
+
+        int next = 0;
+        // Каждому фрагменту нужен хотя бы один запрос
+        for (; next < Math.min(endpoints.size(), sorted.size()); next++) {
+            RestScanSpec spec = specs.get(sorted.get(next));
+            double specCost = costs[sorted.get(next)];
+            assignments.put(next, spec);
+            fragmentLoad[next] += specCost;
+            nodeLoad.merge(endpoints.get(next), specCost, Double::sum);
+        }
+
+        for (; next < sorted.size(); next++) {
+            RestScanSpec spec = specs.get(sorted.get(next));
+            double specCost = costs[sorted.get(next)];
+
+            DrillbitEndpoint node = null;
+            double minNodeLoad = Double.MAX_VALUE;
+            for (Map.Entry<DrillbitEndpoint, List<Integer>> entry : fragmentsByNode.entrySet()) {
+                double load = nodeLoad.getOrDefault(entry.getKey(), 0.0) / entry.getValue().size();
+                if (load < minNodeLoad) {
+                    minNodeLoad = load;
+                    node = entry.getKey();
+                }
+            }
+
+            int fragment = -1;
+            for (int candidate : fragmentsByNode.get(node)) {
+                if (fragment == -1 || fragmentLoad[candidate] < fragmentLoad[fragment]) {
+                    fragment = candidate;
+                }
+            }
+
+            assignments.put(fragment, spec);
+            fragmentLoad[fragment] += specCost;
+            nodeLoad.merge(node, specCost, Double::sum);
+        }
+
+        return assignments;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.drill.exec.store.rest.config.FanOutConfig;
+import org.apache.drill.exec.store.rest.config.HttpMethod;
+import org.apache.drill.exec.store.rest.config.RuntimeQueryConfig;
+import org.apache.drill.exec.store.rest.helpers.HandlebarsHelper;
+import org.apache.drill.exec.store.rest.query.ParameterResolver;
+import org.apache.drill.exec.store.rest.query.ParameterValue;
+import org.apache.drill.exec.store.rest.read.RestRecordReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Разбивает запрос с многозначным параметром на несколько запросов по {@link FanOutConfig}:
+ * в каждом не больше {@code maxValues} значений, а url и тело не длиннее {@code maxBytes}.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class RestScanChunker {
+
+    private RestScanChunker() {
+    }
+
+    static List<RestScanSpec> chunk(RestScanSpec spec, RuntimeQueryConfig config) throws IOException {
+        FanOutConfig fanOut = config.getFanOut();
+        if (fanOut == null) {
+            return Collections.singletonList(spec);
+        }
+
+        Map<String, ParameterValue> parameters = ParameterResolver.parse(spec.getParameters());
+        String name = findParameter(parameters, fanOut.getParameter());
+        if (name == null) {
+            return Collections.singletonList(spec);
+        }
+
+        List<Object> values = new ArrayList<>((Collection<?>) parameters.get(name).getValue());
+        int maxValues = fanOut.getMaxValues() == null || fanOut.getMaxValues() <= 0 ? values.size() : fanOut.getMaxValues();
+        int maxBytes = fanOut.getMaxBytes() == null || fanOut.getMaxBytes() <= 0 ? Integer.MAX_VALUE : fanOut.getMaxBytes();
+
+        List<RestScanSpec> result = new ArrayList<>();
+        int size = Math.min(maxValues, values.size());
+        for (int from = 0; from < values.size(); ) {
+            int to = Math.min(values.size(), from + size);
+            Map<String, ParameterValue> chunkParameters = withValues(parameters, name, values.subList(from, to));
+
+            int bytes;
+            while (to - from > 1 && (bytes = requestSize(config, chunkParameters)) > maxBytes) {
+                //Уменьшаем пропорционально превышению, но хотя бы на одно значение
+                int count = to - from;
+                to = from + Math.max(1, Math.min(count - 1, (int) ((long) count * maxBytes / bytes)));
+                chunkParameters = withValues(parameters, name, values.subList(from, to));
+            }
+
+            if (from == 0 && to == values.size()) {
+                return Collections.singletonList(spec);
+            }
+
+            result.add(new RestScanSpec(spec.getQuery(), RestRecordReader.MAPPER.writeValueAsString(chunkParameters)));
+            size = to - from;
+            from = to;
+        }
+        return result;
+    }
+
+    /**
+     * @return имя заданного параметра или параметра с наибольшим числом значений
+     */
+    private static String findParameter(Map<String, ParameterValue> parameters, String configured) {
+        String result = null;
+        int maxSize = 1;
+        for (Map.Entry<String, ParameterValue> entry : parameters.entrySet()) {
+            ParameterValue value = entry.getValue();
+            if (value == null || value.getType() != ParameterValue.Type.VALUE || !(value.getValue() instanceof Collection)) {
+                continue;
+            }
+
+            int size = ((Collection<?>) value.getValue()).size();
+            if (configured != null) {
+                if (StringUtils.equalsIgnoreCase(configured, entry.getKey()) && size > 1) {
+                    return entry.getKey();
+                }
+            } else if (size > maxSize) {
+                maxSize = size;
+                result = entry.getKey();
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, ParameterValue> withValues(Map<String, ParameterValue> parameters, String name, List<Object> values) {
+        Map<String, ParameterValue> result = new LinkedHashMap<>(parameters);
+        result.put(name, new ParameterValue(ParameterValue.Type.VALUE, new ArrayList<>(values)));
+        return result;
+    }
+
+    /**
+     * Размер url и тела запроса в байтах, параметры подставляются так же, как при выполнении запроса
+     */
+    private static int requestSize(RuntimeQueryConfig config, Map<String, ParameterValue> parameterValues) {
+        Map<String, Object> parameters = new HashMap<>();
+        for (Map.Entry<String, ParameterValue> entry : parameterValues.entrySet()) {
+            ParameterValue value = entry.getValue();
+            if (value != null && value.getType() == ParameterValue.Type.VALUE) {
+                parameters.put(entry.getKey(), value.getValue());
+            }
+        }
+        for (Map.Entry<String, ParameterValue> entry : parameterValues.entrySet()) {
+            parameters.putIfAbsent(StringUtils.lowerCase(entry.getKey()), parameters.get(entry.getKey()));
+        }
+
+        int size = HandlebarsHelper.merge(config.getUrl(), parameters).getBytes(StandardCharsets.UTF_8).length;
+        if (config.getMethod() == HttpMethod.POST && StringUtils.isNotBlank(config.getBody())) {
+            size += HandlebarsHelper.merge(config.getBody(), parameters).getBytes(StandardCharsets.UTF_8).length;
+        }
+        return size;
+    }
+}
@@ -19,14 +19,17 @@ package org.apache.drill.exec.store.rest;
 
 import org.apache.drill.common.exceptions.ExecutionSetupException;
 import org.apache.drill.exec.ops.ExecutorFragmentContext;
+import org.apache.drill.exec.ops.OperatorContext;
 import org.apache.drill.exec.physical.impl.BatchCreator;
 import org.apache.drill.exec.physical.impl.ScanBatch;
+import org.apache.drill.exec.proto.helper.QueryIdHelper;
 import org.apache.drill.exec.record.CloseableRecordBatch;
 import org.apache.drill.exec.record.RecordBatch;
 import org.apache.drill.exec.store.RecordReader;
 import org.apache.drill.exec.store.rest.config.RuntimeQueryConfig;
 import org.apache.drill.exec.store.rest.read.RestRecordReader;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -51,11 +54,30 @@ public class RestScanCreator implements BatchCreator<RestSubScan> {
 
     private CloseableRecordBatch createBatchScan(ExecutorFragmentContext context, RestSubScan scan) throws ExecutionSetupException {
 
-        RuntimeQueryConfig config = scan.getStoragePlugin().getConfig().getRuntimeConfig(scan.getSpec().getQuery());
+        RuntimeQueryConfig config = scan.getStoragePlugin().getQueryCatalog().get(scan.getQuery());
+        //Контекст оператора нужен до ScanBatch: из его аллокатора читаются тела ответов предвыборки
+        OperatorContext operatorContext = context.newOperatorContext(scan);
 
-        RecordReader reader = new RestRecordReader(context, scan, new RequestHandler(config));
+        RequestQueue requests = new RequestQueue(context.getExecutor(),
+                () -> scan.getStoragePlugin().newRequestHandler(scan.getQuery(), config, scan.getUserName()),
+                scan.getSpecs(),
+                scan.getStoragePlugin().getConfig().getRequestConcurrency(),
+                new RestRuntimeFilter(context, scan.getStoragePlugin().getRequestParameters()),
+                scan.getStoragePlugin().newResponseMemory(operatorContext.getAllocator(),
+                        QueryIdHelper.getQueryId(context.getHandle().getQueryId())));
 
-        return new ScanBatch(scan, context, Collections.singletonList(reader));
+        List<RecordReader> readers = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            readers.add(new RestRecordReader(context,
+                    requests,
+                    i,
+                    scan.getStoragePlugin().getRequestParameters(),
+                    config.getFormatOrDefault(),
+                    scan.getStoragePlugin().getStatistics()));
+        }
+
+        //Очередь не запускаем: запросы пойдут из setup() первого ридера, который ее и закроет
+        return new ScanBatch(context, operatorContext, readers, Collections.emptyList());
     }
 
 
@@ -21,6 +21,10 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
 /**
  * @author Oleg Zinoviev
  * @since 15.06.2017.
@@ -39,6 +43,16 @@ public class RestScanSpec {
         this.parameters = parameters;
     }
 
+    /**
+     * Список запросов скана из сериализованного плана. Планы до разбиения на запросы хранили единственный запрос в "spec"
+     */
+    static List<RestScanSpec> listOf(List<RestScanSpec> specs, RestScanSpec legacySpec) {
+        if (specs != null && !specs.isEmpty()) {
+            return specs;
+        }
+        return legacySpec == null ? specs : Collections.singletonList(legacySpec);
+    }
+
     @JsonProperty
     public String getQuery() {
         return query;
@@ -49,4 +63,31 @@ public class RestScanSpec {
         return parameters;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RestScanSpec that = (RestScanSpec) o;
+        return Objects.equals(query, that.query)
+                && Objects.equals(parameters, that.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return 56
+                ^ Objects.hashCode(query)
+                ^ Objects.hashCode(parameters);
+    }
+
+    @Override
+    public String toString() {
+        return "RestScanSpec [query="
+                + query
+                + ", parameters="
+                + parameters + "]";
+    }
+
 }
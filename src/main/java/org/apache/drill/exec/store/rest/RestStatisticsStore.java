@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import org.apache.drill.shaded.guava.com.google.common.cache.CacheBuilder;
+import org.apache.drill.shaded.guava.com.google.common.cache.CacheLoader;
+import org.apache.drill.shaded.guava.com.google.common.cache.LoadingCache;
+import org.apache.drill.shaded.guava.com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.drill.exec.store.sys.PersistentStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Статистика запросов плагина. Хранится в persistent store drill'а, чтобы ее видели все drillbit'ы
+ * (пишут ридеры, читает планировщик), и кешируется локально.
+ * <p>
+ * Ридеры только копят замеры в памяти, в store их раз в {@link #FLUSH_INTERVAL_SEC} секунд (и при закрытии плагина)
+ * сливает фоновый поток: накопленное объединяется с тем, что уже записали другие drillbit'ы.
+ * Чтение и запись в store не атомарны, одновременный сброс с двух drillbit'ов может потерять одну порцию замеров.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public final class RestStatisticsStore implements AutoCloseable {
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RestStatisticsStore.class);
+
+    private static final long FLUSH_INTERVAL_SEC = 10;
+
+    private final PersistentStore<QueryStatistics> store;
+    private final ScheduledExecutorService flusher;
+    private final LoadingCache<String, Optional<QueryStatistics>> cache;
+    /**
+     * Замеры этого drillbit'а, еще не сброшенные в store
+     */
+    private final Map<String, QueryStatistics> pending = new HashMap<>();
+
+    /**
+     * @param store может быть null - тогда статистика живет только в памяти drillbit'а
+     */
+    RestStatisticsStore(PersistentStore<QueryStatistics> store) {
+        this(store, store == null ? null : Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("rest-statistics-%d").setDaemon(true).build()));
+    }
+
+    /**
+     * @param flusher поток периодического сброса в store, null - сбрасывать только через {@link #flush()}
+     */
+    RestStatisticsStore(PersistentStore<QueryStatistics> store, ScheduledExecutorService flusher) {
+        this.store = store;
+        this.flusher = flusher;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .build(new CacheLoader<String, Optional<QueryStatistics>>() {
+                    @Override
+                    public Optional<QueryStatistics> load(String key) {
+                        return Optional.ofNullable(loadFromStore(key));
+                    }
+                });
+        if (flusher != null) {
+            flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SEC, FLUSH_INTERVAL_SEC, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * @return статистика или null, если по запросу еще ничего не собрано
+     */
+    public QueryStatistics get(String query) {
+        return cache.getUnchecked(key(query)).orElse(null);
+    }
+
+    /**
+     * Вызывается из ридеров: store здесь не трогается
+     */
+    public void record(String query, long rows, long bytes, long latency) {
+        String key = key(query);
+        synchronized (this) {
+            cache.put(key, Optional.of(cache.getUnchecked(key)
+                    .orElseGet(QueryStatistics::empty)
+                    .record(rows, bytes, latency)));
+            if (store != null) {
+                pending.put(key, pending.getOrDefault(key, QueryStatistics.empty()).record(rows, bytes, latency));
+            }
+        }
+    }
+
+    /**
+     * Сливает накопленные замеры с сохраненными в store
+     */
+    void flush() {
+        List<Map.Entry<String, QueryStatistics>> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(pending.entrySet());
+            pending.clear();
+        }
+
+        for (Map.Entry<String, QueryStatistics> entry : entries) {
+            String key = entry.getKey();
+            try {
+                QueryStatistics stored = store.get(key);
+                QueryStatistics merged = stored == null ? entry.getValue() : stored.merge(entry.getValue());
+                store.put(key, merged);
+                synchronized (this) {
+                    //Замеры, пришедшие во время сброса, остаются в локальном представлении
+                    QueryStatistics local = pending.get(key);
+                    cache.put(key, Optional.of(local == null ? merged : merged.merge(local)));
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Unable to persist statistics of REST query {}", key, e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        if (store != null) {
+            flush();
+        }
+    }
+
+    private QueryStatistics loadFromStore(String key) {
+        if (store == null) {
+            return null;
+        }
+
+        try {
+            return store.get(key);
+        } catch (RuntimeException e) {
+            logger.warn("Unable to load statistics of REST query {}", key, e);
+            return null;
+        }
+    }
+
+    private static String key(String query) {
+        //Имена запросов регистронезависимы, а ключ должен быть допустимым именем в store
+        return StringUtils.lowerCase(query).replace('/', '_');
+    }
+}
@@ -20,20 +20,35 @@ package org.apache.drill.exec.store.rest;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.drill.shaded.guava.com.google.common.collect.ImmutableSet;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.schema.SchemaPlus;
 import org.apache.drill.common.JSONOptions;
 import org.apache.drill.common.expression.SchemaPath;
+import org.apache.drill.exec.ExecConstants;
+import org.apache.drill.exec.exception.StoreException;
+import org.apache.drill.exec.memory.BufferAllocator;
 import org.apache.drill.exec.ops.OptimizerRulesContext;
 import org.apache.drill.exec.physical.base.AbstractGroupScan;
 import org.apache.drill.exec.server.DrillbitContext;
 import org.apache.drill.exec.store.AbstractStoragePlugin;
 import org.apache.drill.exec.store.SchemaConfig;
+import org.apache.drill.exec.store.sys.PersistentStore;
+import org.apache.drill.exec.store.sys.PersistentStoreConfig;
+import org.apache.drill.exec.store.rest.lookup.RestLookupJoinPrule;
+import org.apache.drill.exec.store.rest.lookup.RestLookupJoinRule;
+import org.apache.drill.exec.store.rest.config.QueryCatalog;
+import org.apache.drill.exec.store.rest.config.RuntimeQueryConfig;
+import org.apache.drill.exec.store.rest.query.ParameterCache;
 import org.apache.drill.exec.store.rest.query.RestPushFilterIntoScan;
+import org.apache.drill.exec.store.rest.query.SubQueryExecutor;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Oleg Zinoviev
@@ -42,13 +57,21 @@ import java.util.Set;
 @SuppressWarnings("FieldCanBeLocal")
 public class RestStoragePlugin extends AbstractStoragePlugin {
 
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RestStoragePlugin.class);
+
     private final RestSchemaFactory schemaFactory;
     private final RestStoragePluginConfig config;
+    private final QueryCatalog queryCatalog;
+    private volatile RestStatisticsStore statistics;
+    private volatile SubQueryExecutor subQueryExecutor;
+    private final ConcurrentMap<String, ParameterCache> parameterCaches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> responseMemory = new ConcurrentHashMap<>();
 
     public RestStoragePlugin(RestStoragePluginConfig config, DrillbitContext context, String name) {
         super(context, name);
         this.schemaFactory = new RestSchemaFactory(name, this);
         this.config = config;
+        this.queryCatalog = new QueryCatalog(config);
     }
 
     @Override
@@ -56,10 +79,94 @@ public class RestStoragePlugin extends AbstractStoragePlugin {
         return config;
     }
 
+    public QueryCatalog getQueryCatalog() {
+        return queryCatalog;
+    }
+
+    public RestStatisticsStore getStatistics() {
+        if (statistics == null) {
+            synchronized (this) {
+                if (statistics == null) {
+                    statistics = new RestStatisticsStore(createStatisticsStore());
+                }
+            }
+        }
+        return statistics;
+    }
+
+    private PersistentStore<QueryStatistics> createStatisticsStore() {
+        try {
+            return getContext().getStoreProvider().getOrCreateStore(
+                    PersistentStoreConfig.newJacksonBuilder(new ObjectMapper(), QueryStatistics.class)
+                            .name("rest.statistics." + getName())
+                            .build());
+        } catch (StoreException | RuntimeException e) {
+            logger.warn("Unable to create statistics store for REST storage plugin {}", getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Выполняет SQL параметров запросов, соединения с drillbit'ом общие для всех запросов плагина
+     */
+    public SubQueryExecutor getSubQueryExecutor() {
+        if (subQueryExecutor == null) {
+            synchronized (this) {
+                if (subQueryExecutor == null) {
+                    subQueryExecutor = new SubQueryExecutor(
+                            getContext().getConfig().getInt(ExecConstants.INITIAL_USER_PORT),
+                            config.getSubqueryConnections());
+                }
+            }
+        }
+        return subQueryExecutor;
+    }
+
+    /**
+     * @return кеш результатов параметров-подзапросов или null, если для запроса он не включен
+     */
+    ParameterCache getParameterCache(String query, RuntimeQueryConfig runtimeConfig) {
+        if (!runtimeConfig.isParameterCacheEnabled()) {
+            return null;
+        }
+        return parameterCaches.computeIfAbsent(StringUtils.lowerCase(query),
+                q -> new ParameterCache(runtimeConfig.getParameterCacheTtl(), runtimeConfig.getParameterCacheBytesOrDefault()));
+    }
+
+    /**
+     * Обработчик одного запроса к сервису, например, для lookup join'а
+     */
+    public RequestHandler newRequestHandler(String query, String userName) {
+        return newRequestHandler(query, queryCatalog.get(query), userName);
+    }
+
+    RequestHandler newRequestHandler(String query, RuntimeQueryConfig runtimeConfig, String userName) {
+        return new RequestHandler(runtimeConfig, getSubQueryExecutor(), getParameterCache(query, runtimeConfig), userName);
+    }
+
+    /**
+     * Память под ответы скана: из аллокатора оператора, с лимитами из конфигурации плагина
+     */
+    ResponseMemory newResponseMemory(BufferAllocator allocator, String queryId) {
+        return new ResponseMemory(allocator,
+                responseMemory,
+                queryId,
+                config.getResponseMemoryPerOperator(),
+                config.getResponseMemoryPerQuery());
+    }
+
     public String getRequestParameters() {
         return String.format("$__%s_param", getName());
     }
 
+    /**
+     * Колонка ключа lookup join'а: {@code t.id = r.$__<plugin>_lookup} делает по запросу на значение {@code t.id}.
+     * Если lookup join построить нельзя (right/full join, формат не content и т.п.), скан с этой колонкой не выполняется
+     */
+    public String getLookupKey() {
+        return String.format("$__%s_lookup", getName());
+    }
+
     @Override
     public void registerSchemas(SchemaConfig schemaConfig, SchemaPlus schemaPlus) {
         schemaFactory.registerSchemas(schemaConfig, schemaPlus);
@@ -69,13 +176,32 @@ public class RestStoragePlugin extends AbstractStoragePlugin {
     public AbstractGroupScan getPhysicalScan(String userName, JSONOptions selection, List<SchemaPath> columns) throws IOException {
         RestScanSpec scanSpec = selection.getListWith(new ObjectMapper(), new TypeReference<RestScanSpec>() {
         });
-        return new RestGroupScan(userName, this, scanSpec, columns, scanSpec.getParameters() != null);
+        return RestGroupScan.create(userName, this, Collections.singletonList(scanSpec), columns, scanSpec.getParameters() != null);
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public Set<? extends RelOptRule> getLogicalOptimizerRules(OptimizerRulesContext optimizerContext) {
+        return ImmutableSet.of(RestLookupJoinRule.INSTANCE);
     }
 
     @SuppressWarnings("deprecation")
     @Override
     public Set<? extends RelOptRule> getPhysicalOptimizerRules(OptimizerRulesContext optimizerRulesContext) {
-        return ImmutableSet.of(RestPushFilterIntoScan.FILTER_ON_SCAN, RestPushFilterIntoScan.FILTER_ON_PROJECT);
+        return ImmutableSet.of(RestPushFilterIntoScan.FILTER_ON_SCAN,
+                RestPushFilterIntoScan.FILTER_ON_PROJECT,
+                RestLookupJoinPrule.INSTANCE);
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (subQueryExecutor != null) {
+            subQueryExecutor.close();
+        }
+        if (statistics != null) {
+            statistics.close();
+        }
+        super.close();
     }
 
 }
\ No newline at end of file
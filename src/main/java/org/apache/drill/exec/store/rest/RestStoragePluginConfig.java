@@ -18,14 +18,20 @@
 package org.apache.drill.exec.store.rest;
 
 import com.fasterxml.jackson.annotation.*;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.drill.common.logical.StoragePluginConfigBase;
 import org.apache.drill.exec.store.rest.config.QueryConfig;
-import org.apache.drill.exec.store.rest.config.RuntimeConfigBuilder;
-import org.apache.drill.exec.store.rest.config.RuntimeQueryConfig;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author Oleg Zinoviev
@@ -36,6 +42,51 @@ import java.util.Objects;
 public class RestStoragePluginConfig extends StoragePluginConfigBase {
 
     static final String NAME = "rest";
+
+    /**
+     * Минимальное число фрагментов скана на один drillbit, если запросов (work units) хватает
+     */
+    static final String SCAN_WIDTH_PER_NODE = "scanWidthPerNode";
+
+    /**
+     * Сколько запросов одного фрагмента может выполняться одновременно
+     */
+    static final String REQUEST_CONCURRENCY = "requestConcurrency";
+
+    /**
+     * Drillbit'ы (host или host:user-port), с которых разрешено ходить во внешние сервисы.
+     * Если не задано - подходит любой drillbit.
+     */
+    static final String EGRESS_DRILLBITS = "egressDrillbits";
+
+    /**
+     * Размер LRU кеша ключ -> ответ у lookup join'а (на фрагмент)
+     */
+    static final String LOOKUP_CACHE_SIZE = "lookupCacheSize";
+
+    /**
+     * Сколько свободных JDBC соединений для параметров QUERY/SUBQUERY держать на drillbit'е
+     */
+    static final String SUBQUERY_CONNECTIONS = "subqueryConnections";
+
+    /**
+     * Выполнять SQL параметров QUERY/SUBQUERY один раз при распараллеливании, а не в каждом фрагменте.
+     * Для запросов с fan-out SQL выполняется уже при построении плана (в том числе для EXPLAIN), чтобы разбить
+     * его результаты на запросы, но и тогда каждый SQL выполняется один раз на запрос drill'а.
+     * Без этой настройки fan-out разбивает только значения, заданные в фильтре
+     */
+    static final String RESOLVE_PARAMETERS_AT_PLANNING = "resolveParametersAtPlanning";
+
+    /**
+     * Сколько байт тел ответов может держать в памяти один скан (с учетом предвыборки), не больше 2 ГБ на ответ
+     */
+    static final String RESPONSE_MEMORY_PER_OPERATOR = "responseMemoryPerOperator";
+
+    /**
+     * Сколько байт тел ответов могут держать в памяти все сканы одного запроса на drillbit'е
+     */
+    static final String RESPONSE_MEMORY_PER_QUERY = "responseMemoryPerQuery";
+
     private final String url;
     private final Map<String, String> headers;
     private final Map<String, Object> config;
@@ -67,12 +118,72 @@ public class RestStoragePluginConfig extends StoragePluginConfigBase {
         return queries;
     }
 
+    @JsonProperty
+    public Map<String, Object> getConfig() {
+        return config;
+    }
+
+    @JsonIgnore
+    int getScanWidthPerNode() {
+        return Math.max(1, getIntSetting(SCAN_WIDTH_PER_NODE, 1));
+    }
+
+    @JsonIgnore
+    public int getLookupCacheSize() {
+        return Math.max(0, getIntSetting(LOOKUP_CACHE_SIZE, 10000));
+    }
+
+    @JsonIgnore
+    public int getRequestConcurrency() {
+        return Math.max(1, getIntSetting(REQUEST_CONCURRENCY, 4));
+    }
+
+    @JsonIgnore
+    int getSubqueryConnections() {
+        return Math.max(1, getIntSetting(SUBQUERY_CONNECTIONS, 4));
+    }
+
+    @JsonIgnore
+    boolean isResolveParametersAtPlanning() {
+        return BooleanUtils.toBoolean(Objects.toString(config.get(RESOLVE_PARAMETERS_AT_PLANNING), null));
+    }
+
+    @JsonIgnore
+    long getResponseMemoryPerOperator() {
+        return getLongSetting(RESPONSE_MEMORY_PER_OPERATOR, 256L * 1024 * 1024);
+    }
+
     @JsonIgnore
-    RuntimeQueryConfig getRuntimeConfig(String query) {
-        return new RuntimeConfigBuilder()
-                .withQuery(query)
-                .withRootConfig(this)
-                .build();
+    long getResponseMemoryPerQuery() {
+        return getLongSetting(RESPONSE_MEMORY_PER_QUERY, 1024L * 1024 * 1024);
+    }
+
+    @JsonIgnore
+    List<String> getEgressDrillbits() {
+        Object value = config.get(EGRESS_DRILLBITS);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+
+        Stream<String> hosts = value instanceof Collection
+                ? ((Collection<?>) value).stream().map(v -> Objects.toString(v, null))
+                : Arrays.stream(StringUtils.split(value.toString(), ','));
+
+        return hosts.filter(StringUtils::isNotBlank)
+                .map(String::trim)
+                .collect(Collectors.toList());
+    }
+
+    private int getIntSetting(String name, int defaultValue) {
+        return NumberUtils.toInt(Objects.toString(config.get(name), null), defaultValue);
+    }
+
+    /**
+     * @return значение; 0 и меньше - без ограничения
+     */
+    private long getLongSetting(String name, long defaultValue) {
+        long value = NumberUtils.toLong(Objects.toString(config.get(name), null), defaultValue);
+        return value <= 0 ? Long.MAX_VALUE : value;
     }
 
     @Override
@@ -18,6 +18,7 @@
 package org.apache.drill.exec.store.rest;
 
 import com.fasterxml.jackson.annotation.*;
+import org.apache.drill.shaded.guava.com.google.common.collect.ImmutableList;
 import org.apache.drill.common.exceptions.ExecutionSetupException;
 import org.apache.drill.exec.physical.base.AbstractSubScan;
 import org.apache.drill.exec.physical.base.PhysicalOperator;
@@ -34,29 +35,55 @@ import java.util.List;
 @JsonTypeName("rest-sub-scan")
 public class RestSubScan extends AbstractSubScan {
 
-    private final RestScanSpec spec;
+    private static final long MIN_INITIAL_ALLOCATION = 100;
+
+    private final List<RestScanSpec> specs;
     private final RestStoragePlugin storagePlugin;
     private final RestStoragePluginConfig storagePluginConfig;
 
     @JsonCreator
     private RestSubScan(@JsonProperty("userName") String userName,
-                        @JsonProperty("spec") RestScanSpec restScanSpec,
+                        @JsonProperty("specs") List<RestScanSpec> specs,
+                        @JsonProperty("spec") RestScanSpec legacySpec,
+                        @JsonProperty("initialAllocation") Long initialAllocation,
                         @JsonProperty("storagePluginConfig") RestStoragePluginConfig storagePluginConfig,
                         @JacksonInject StoragePluginRegistry pluginRegistry) throws IOException, ExecutionSetupException {
-        this (userName, restScanSpec, (RestStoragePlugin) pluginRegistry.getPlugin(storagePluginConfig));
+        this (userName, RestScanSpec.listOf(specs, legacySpec),
+                initialAllocation == null ? MIN_INITIAL_ALLOCATION : initialAllocation,
+                (RestStoragePlugin) pluginRegistry.getPlugin(storagePluginConfig));
     }
 
-    RestSubScan(String userName, RestScanSpec spec, RestStoragePlugin storagePlugin) {
+    /**
+     * @param initialAllocation считается при планировании, чтобы фрагменту не приходилось ходить в store
+     */
+    RestSubScan(String userName, List<RestScanSpec> specs, long initialAllocation, RestStoragePlugin storagePlugin) {
         super(userName);
-        this.spec = spec;
+        this.specs = ImmutableList.copyOf(specs);
         this.storagePlugin = storagePlugin;
         this.storagePluginConfig = storagePlugin.getConfig();
-        initialAllocation = 100;
+        this.initialAllocation = Math.max(MIN_INITIAL_ALLOCATION, Math.min(initialAllocation, maxAllocation));
+    }
+
+    /**
+     * Весь ответ сервиса попадает в один батч, поэтому резервируем столько, сколько обычно весит ответ
+     *
+     * @param statistics может быть null
+     */
+    static long estimateInitialAllocation(QueryStatistics statistics) {
+        if (statistics == null || statistics.getRequests() == 0) {
+            return MIN_INITIAL_ALLOCATION;
+        }
+        return Math.max(MIN_INITIAL_ALLOCATION, (long) Math.ceil(statistics.getBytes()));
     }
 
     @JsonProperty
-    public RestScanSpec getSpec() {
-        return spec;
+    public List<RestScanSpec> getSpecs() {
+        return specs;
+    }
+
+    @JsonIgnore
+    public String getQuery() {
+        return specs.get(0).getQuery();
     }
 
     @JsonProperty
@@ -0,0 +1,324 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.drill.exec.store.rest.helpers.HandlebarsHelper;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Тело запроса из шаблона (при необходимости - со сжатием gzip). Тело до {@link #BUFFER_LIMIT} байт
+ * собирается в памяти и отправляется с Content-Length; большее рендерится прямо в поток запроса
+ * chunked, не собираясь целиком в памяти.
+ * <p>
+ * Способ выбирается по оценке размера (шаблон плюс значения параметров) до рендеринга, так что большое тело
+ * рендерится один раз - при отправке. Второй раз рендерится только тело, которое оценка сочла маленьким,
+ * а оно не поместилось в буфер (например, шаблон повторяет большой параметр).
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class TemplateEntity extends AbstractHttpEntity {
+
+    private static final int PREVIEW_LENGTH = 1024;
+
+    /**
+     * Не все сервисы принимают chunked запросы, поэтому обычные тела отправляем с длиной
+     */
+    static final int BUFFER_LIMIT = 1024 * 1024;
+
+    private final String template;
+    private final Map<String, Object> parameters;
+    private final Charset charset;
+    private final boolean gzip;
+    private final byte[] content;
+    private volatile String preview;
+
+    TemplateEntity(String template, Map<String, Object> parameters, Charset charset, boolean gzip) throws IOException {
+        this(template, parameters, charset, gzip, BUFFER_LIMIT);
+    }
+
+    TemplateEntity(String template, Map<String, Object> parameters, Charset charset, boolean gzip, int bufferLimit) throws IOException {
+        this.template = template;
+        this.parameters = parameters;
+        this.charset = charset;
+        this.gzip = gzip;
+        //Content-Type не ставим, он задается заголовками запроса
+        if (gzip) {
+            setContentEncoding("gzip");
+        }
+
+        byte[] rendered = null;
+        if (estimateBytes(template, parameters, charset) <= bufferLimit) {
+            LimitedOutputStream buffer = new LimitedOutputStream(bufferLimit);
+            PreviewWriter previewWriter = new PreviewWriter();
+            try {
+                render(buffer, previewWriter);
+                rendered = buffer.toByteArray();
+                this.preview = previewWriter.toString();
+            } catch (IOException | RuntimeException e) {
+                //Шаблонизатор может завернуть исключение буфера в свое
+                if (!buffer.exceeded) {
+                    throw e;
+                }
+            }
+        }
+        this.content = rendered;
+        setChunked(content == null);
+    }
+
+    /**
+     * Грубая оценка размера тела сверху: шаблон целиком и каждое значение параметра по одному разу.
+     * Для gzip - размер до сжатия
+     */
+    static long estimateBytes(String template, Map<String, Object> parameters, Charset charset) {
+        long chars = template.length();
+        //Параметры лежат в map еще и под именами в нижнем регистре - одно значение считаем один раз
+        Set<Object> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Object value : parameters.values()) {
+            if (value != null && counted.add(value)) {
+                chars += estimateLength(value);
+            }
+        }
+
+        float bytesPerChar;
+        try {
+            bytesPerChar = charset.newEncoder().averageBytesPerChar();
+        } catch (UnsupportedOperationException e) {
+            bytesPerChar = 4;
+        }
+        return (long) Math.ceil(chars * (double) bytesPerChar);
+    }
+
+    private static long estimateLength(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof CharSequence) {
+            return ((CharSequence) value).length();
+        } else if (value instanceof Collection) {
+            long length = 0;
+            for (Object item : (Collection<?>) value) {
+                //Значение и разделитель
+                length += estimateLength(item) + 1;
+            }
+            return length;
+        } else if (value instanceof Map) {
+            long length = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                length += estimateLength(entry.getKey()) + estimateLength(entry.getValue()) + 2;
+            }
+            return length;
+        }
+        return String.valueOf(value).length();
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return content == null ? -1 : content.length;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        if (content != null) {
+            return new ByteArrayInputStream(content);
+        }
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        writeTo(result);
+        return new ByteArrayInputStream(result.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        if (content != null) {
+            outStream.write(content);
+            outStream.flush();
+        } else {
+            PreviewWriter previewWriter = preview == null ? new PreviewWriter() : null;
+            render(outStream, previewWriter);
+            if (previewWriter != null) {
+                preview = previewWriter.toString();
+            }
+        }
+    }
+
+    private void render(OutputStream outStream, PreviewWriter previewWriter) throws IOException {
+        //Поток запроса закрывает http клиент
+        OutputStream target = new CloseShieldOutputStream(outStream);
+        if (gzip) {
+            target = new GZIPOutputStream(target);
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(target, charset))) {
+            HandlebarsHelper.merge(template, parameters, previewWriter == null ? writer : previewWriter.to(writer));
+        }
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * @return начало тела запроса, для контекста ошибок
+     */
+    @Override
+    public String toString() {
+        if (preview == null) {
+            //Тело еще не отправлялось (например, не удалось соединиться) - рендерим только начало
+            PreviewWriter previewWriter = new PreviewWriter();
+            try {
+                HandlebarsHelper.merge(template, parameters, previewWriter.to(new PreviewLimitWriter()));
+            } catch (IOException | RuntimeException e) {
+                if (!previewWriter.truncated) {
+                    return "(unable to render body: " + e.getMessage() + ")";
+                }
+            }
+            preview = previewWriter.toString();
+        }
+        return preview;
+    }
+
+    /**
+     * Буфер, который бросает исключение вместо роста сверх лимита
+     */
+    private static final class LimitedOutputStream extends ByteArrayOutputStream {
+        private final int limit;
+        private boolean exceeded = false;
+
+        private LimitedOutputStream(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            super.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            super.write(bytes, offset, length);
+        }
+
+        private void ensureCapacity(int length) {
+            if (exceeded || count + length > limit) {
+                exceeded = true;
+                throw new LimitExceededException();
+            }
+        }
+    }
+
+    private static final class LimitExceededException extends RuntimeException {
+        private LimitExceededException() {
+            super("Request body exceeds buffer limit", null, false, false);
+        }
+    }
+
+    /**
+     * Прерывает рендеринг, как только начало тела уже собрано
+     */
+    private static final class PreviewLimitWriter extends Writer {
+        private int count = 0;
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            count += length;
+            if (count > PREVIEW_LENGTH) {
+                throw new LimitExceededException();
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Запоминает первые {@link #PREVIEW_LENGTH} символов, передавая все дальше
+     */
+    private static final class PreviewWriter {
+        private final StringBuilder buffer = new StringBuilder();
+        private boolean truncated = false;
+
+        private Writer to(Writer target) {
+            return new FilterWriter(target) {
+                @Override
+                public void write(int c) throws IOException {
+                    if (reserve(1) > 0) {
+                        buffer.append((char) c);
+                    }
+                    super.write(c);
+                }
+
+                @Override
+                public void write(char[] chars, int offset, int length) throws IOException {
+                    buffer.append(chars, offset, reserve(length));
+                    super.write(chars, offset, length);
+                }
+
+                @Override
+                public void write(String str, int offset, int length) throws IOException {
+                    buffer.append(str, offset, offset + reserve(length));
+                    super.write(str, offset, length);
+                }
+            };
+        }
+
+        /**
+         * @return сколько символов из length еще помещается в начало тела
+         */
+        private int reserve(int length) {
+            int available = PREVIEW_LENGTH - buffer.length();
+            if (length > available) {
+                truncated = true;
+            }
+            return Math.max(0, Math.min(length, available));
+        }
+
+        @Override
+        public String toString() {
+            return truncated ? buffer + "... (truncated)" : buffer.toString();
+        }
+    }
+}
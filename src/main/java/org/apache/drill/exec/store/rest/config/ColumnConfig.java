@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.drill.common.types.TypeProtos.MinorType;
+import org.apache.drill.shaded.guava.com.google.common.base.Preconditions;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Колонка с заранее известным типом: значение берется из записи по пути и пишется сразу в вектор нужного типа.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class ColumnConfig {
+
+    public static final Set<MinorType> SUPPORTED_TYPES = EnumSet.of(MinorType.VARCHAR,
+            MinorType.INT,
+            MinorType.BIGINT,
+            MinorType.FLOAT8,
+            MinorType.BIT,
+            MinorType.DATE,
+            MinorType.TIMESTAMP);
+
+    private final String name;
+    private final String path;
+    private final String type;
+    private final MinorType minorType;
+
+    /**
+     * @param path путь от записи: JSON Pointer ({@code /user/id}) или простой JSONPath ({@code $.user.id})
+     * @param type тип drill'а: VARCHAR (по умолчанию), INT, BIGINT, FLOAT8, BIT, DATE или TIMESTAMP
+     */
+    @JsonCreator
+    public ColumnConfig(@JsonProperty(value = "name", required = true) String name,
+                        @JsonProperty(value = "path", required = true) String path,
+                        @JsonProperty(value = "type") String type) {
+        this.name = Preconditions.checkNotNull(name, "column name cannot be null");
+        this.path = Preconditions.checkNotNull(path, "column path cannot be null");
+        this.type = type;
+        this.minorType = type == null ? MinorType.VARCHAR : MinorType.valueOf(StringUtils.upperCase(type));
+        Preconditions.checkArgument(SUPPORTED_TYPES.contains(minorType), "Unsupported type %s of column %s", type, name);
+    }
+
+    @JsonProperty
+    public String getName() {
+        return name;
+    }
+
+    @JsonProperty
+    public String getPath() {
+        return path;
+    }
+
+    @JsonProperty
+    public String getType() {
+        return type;
+    }
+
+    @JsonIgnore
+    public MinorType getMinorType() {
+        return minorType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ColumnConfig that = (ColumnConfig) o;
+        return Objects.equals(name, that.name)
+                && Objects.equals(path, that.path)
+                && Objects.equals(type, that.type);
+    }
+
+    @Override
+    public int hashCode() {
+        return 56
+                ^ Objects.hashCode(name)
+                ^ Objects.hashCode(path)
+                ^ Objects.hashCode(type);
+    }
+}
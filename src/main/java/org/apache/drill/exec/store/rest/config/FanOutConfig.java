@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+/**
+ * Разбиение многозначного параметра на несколько запросов.
+ * Значения параметров QUERY/SUBQUERY разбиваются, только если включен {@code resolveParametersAtPlanning}:
+ * тогда их SQL выполняется при планировании, в том числе для EXPLAIN.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class FanOutConfig {
+
+    private final String parameter;
+    private final Integer maxValues;
+    private final Integer maxBytes;
+
+    /**
+     * @param parameter имя параметра, если не задано - разбивается параметр с наибольшим числом значений
+     * @param maxValues максимальное число значений в одном запросе
+     * @param maxBytes  максимальный размер url и тела одного запроса в байтах
+     */
+    @JsonCreator
+    public FanOutConfig(@JsonProperty(value = "parameter") String parameter,
+                        @JsonProperty(value = "maxValues") Integer maxValues,
+                        @JsonProperty(value = "maxBytes") Integer maxBytes) {
+        this.parameter = parameter;
+        this.maxValues = maxValues;
+        this.maxBytes = maxBytes;
+    }
+
+    @JsonProperty
+    public String getParameter() {
+        return parameter;
+    }
+
+    @JsonProperty
+    public Integer getMaxValues() {
+        return maxValues;
+    }
+
+    @JsonProperty
+    public Integer getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        FanOutConfig that = (FanOutConfig) o;
+        return Objects.equals(parameter, that.parameter)
+                && Objects.equals(maxValues, that.maxValues)
+                && Objects.equals(maxBytes, that.maxBytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 56
+                ^ Objects.hashCode(parameter)
+                ^ Objects.hashCode(maxValues)
+                ^ Objects.hashCode(maxBytes);
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.drill.shaded.guava.com.google.common.base.Preconditions;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Формат ответа сервиса. В конфигурации задается строкой ({@code "format": "json"})
+ * или объектом с настройками ({@code "format": {"type": "json", "root": "$.items"}}).
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class FormatConfig {
+
+    public static final FormatConfig CONTENT = new FormatConfig(ResponseFormat.CONTENT, null, null, null, null, null, null, null, null, null);
+
+    private final ResponseFormat type;
+    private final String root;
+    private final Map<String, String> namespaces;
+    private final String delimiter;
+    private final String quote;
+    private final Boolean header;
+    private final String charset;
+    private final List<ColumnConfig> columns;
+    private final String schema;
+    private final String message;
+
+    /**
+     * @param root       путь к записям в ответе. Для json - JSON Pointer ({@code /data/items}) или простой JSONPath
+     *                   ({@code $.data.items}), если не задан - записи берутся из корня документа.
+     *                   Для xml - путь к элементам записей ({@code /soap:Envelope/soap:Body/m:Items/m:Item} или {@code m:Item}),
+     *                   если не задан - записи это дочерние элементы корня.
+     *                   Для html-table - css селектор таблицы, по умолчанию первая таблица страницы
+     * @param namespaces префиксы namespace'ов, используемые в пути xml
+     * @param delimiter  разделитель полей csv, по умолчанию запятая
+     * @param quote      кавычка csv, по умолчанию двойная
+     * @param header     первая строка csv - заголовок с именами колонок, иначе поля пишутся в массив columns.
+     *                   Для html-table, если не задан, заголовок определяется по {@code <th>}
+     * @param charset    кодировка ответа, если сервис ее не передает или передает неправильно
+     * @param columns    колонки с путями и типами для json, ndjson, cbor, smile и msgpack; если заданы, в таблице будут только они
+     * @param schema     для avro - схема записей (json или путь к локальному файлу .avsc), если сервис отдает записи
+     *                   без заголовка object container file; для protobuf - путь к локальному файлу descriptor set
+     *                   ({@code protoc --descriptor_set_out})
+     * @param message    полное имя типа сообщений protobuf
+     */
+    @JsonCreator
+    public FormatConfig(@JsonProperty(value = "type", required = true) ResponseFormat type,
+                        @JsonProperty(value = "root") String root,
+                        @JsonProperty(value = "namespaces") Map<String, String> namespaces,
+                        @JsonProperty(value = "delimiter") String delimiter,
+                        @JsonProperty(value = "quote") String quote,
+                        @JsonProperty(value = "header") Boolean header,
+                        @JsonProperty(value = "charset") String charset,
+                        @JsonProperty(value = "columns") List<ColumnConfig> columns,
+                        @JsonProperty(value = "schema") String schema,
+                        @JsonProperty(value = "message") String message) {
+        this.type = type == null ? ResponseFormat.CONTENT : type;
+        this.root = root;
+        this.namespaces = namespaces == null ? Collections.emptyMap() : namespaces;
+        this.delimiter = delimiter;
+        this.quote = quote;
+        this.header = header;
+        this.charset = charset;
+        this.columns = columns == null ? Collections.emptyList() : columns;
+        this.schema = schema;
+        this.message = message;
+        Preconditions.checkArgument(delimiter == null || delimiter.length() == 1, "delimiter must be a single character");
+        Preconditions.checkArgument(quote == null || quote.length() == 1, "quote must be a single character");
+        Preconditions.checkArgument(this.type != ResponseFormat.PROTOBUF || (schema != null && message != null),
+                "protobuf format requires schema and message");
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static FormatConfig of(String type) {
+        return new FormatConfig(ResponseFormat.fromValue(type), null, null, null, null, null, null, null, null, null);
+    }
+
+    @JsonProperty
+    public ResponseFormat getType() {
+        return type;
+    }
+
+    @JsonProperty
+    public String getRoot() {
+        return root;
+    }
+
+    @JsonProperty
+    public Map<String, String> getNamespaces() {
+        return namespaces;
+    }
+
+    @JsonProperty
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    @JsonProperty
+    public String getQuote() {
+        return quote;
+    }
+
+    @JsonProperty
+    public Boolean getHeader() {
+        return header;
+    }
+
+    @JsonProperty
+    public String getCharset() {
+        return charset;
+    }
+
+    @JsonProperty
+    public List<ColumnConfig> getColumns() {
+        return columns;
+    }
+
+    @JsonProperty
+    public String getSchema() {
+        return schema;
+    }
+
+    @JsonProperty
+    public String getMessage() {
+        return message;
+    }
+
+    @JsonIgnore
+    public char getDelimiterChar() {
+        return delimiter == null ? ',' : delimiter.charAt(0);
+    }
+
+    @JsonIgnore
+    public char getQuoteChar() {
+        return quote == null ? '"' : quote.charAt(0);
+    }
+
+    @JsonIgnore
+    public boolean isHeader() {
+        return BooleanUtils.isTrue(header);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        FormatConfig that = (FormatConfig) o;
+        return Objects.equals(type, that.type)
+                && Objects.equals(root, that.root)
+                && Objects.equals(namespaces, that.namespaces)
+                && Objects.equals(delimiter, that.delimiter)
+                && Objects.equals(quote, that.quote)
+                && Objects.equals(header, that.header)
+                && Objects.equals(charset, that.charset)
+                && Objects.equals(columns, that.columns)
+                && Objects.equals(schema, that.schema)
+                && Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return 56
+                ^ Objects.hashCode(type)
+                ^ Objects.hashCode(root)
+                ^ Objects.hashCode(namespaces)
+                ^ Objects.hashCode(delimiter)
+                ^ Objects.hashCode(quote)
+                ^ Objects.hashCode(header)
+                ^ Objects.hashCode(charset)
+                ^ Objects.hashCode(columns)
+                ^ Objects.hashCode(schema)
+                ^ Objects.hashCode(message);
+    }
+}
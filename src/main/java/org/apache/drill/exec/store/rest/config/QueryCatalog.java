@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.config;
+
+import org.apache.drill.shaded.guava.com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.drill.exec.store.rest.RestStoragePluginConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Готовые {@link RuntimeQueryConfig} всех запросов из конфигурации плагина. Собирается один раз
+ * при создании плагина; имена запросов регистронезависимы.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public final class QueryCatalog {
+
+    private final RestStoragePluginConfig config;
+    private final Map<String, RuntimeQueryConfig> queries;
+
+    public QueryCatalog(RestStoragePluginConfig config) {
+        this.config = config;
+
+        Map<String, RuntimeQueryConfig> queries = new HashMap<>();
+        for (String query : config.getQueries().keySet()) {
+            //Как и раньше, при совпадении имен без учета регистра побеждает первый запрос
+            queries.putIfAbsent(StringUtils.lowerCase(query), build(query));
+        }
+        this.queries = ImmutableMap.copyOf(queries);
+    }
+
+    /**
+     * @return конфигурация запроса; для запроса, которого нет в конфигурации, url - само имя запроса
+     */
+    public RuntimeQueryConfig get(String query) {
+        RuntimeQueryConfig result = queries.get(StringUtils.lowerCase(query));
+        return result == null ? build(query) : result;
+    }
+
+    private RuntimeQueryConfig build(String query) {
+        return new RuntimeConfigBuilder()
+                .withQuery(query)
+                .withRootConfig(config)
+                .build();
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.drill.exec.store.rest.config;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.Map;
@@ -29,17 +30,38 @@ import java.util.Objects;
  */
 public class QueryConfig extends ServiceConfigBase {
 
+    private static final long DEFAULT_PARAMETER_CACHE_BYTES = 64L * 1024 * 1024;
+
     private final HttpMethod method;
     private final String body;
+    private final Long parameterCacheTtl;
+    private final Long parameterCacheBytes;
+    private final FanOutConfig fanOut;
+    private final FormatConfig format;
 
+    /**
+     * @param parameterCacheTtl   время жизни (в секундах) закешированных результатов параметров QUERY/SUBQUERY,
+     *                            если не задано - результаты не кешируются
+     * @param parameterCacheBytes сколько байт (по оценке размера значений) можно держать в кеше параметров
+     * @param fanOut              разбиение многозначного параметра на несколько запросов
+     * @param format              формат ответа, по умолчанию - одна строка с телом ответа в колонке content
+     */
     @JsonCreator
     public QueryConfig(@JsonProperty(value = "url", required = true) String url,
                        @JsonProperty(value = "headers") Map<String, String> headers,
                        @JsonProperty(value = "method") HttpMethod method,
-                       @JsonProperty(value = "body") String body) {
+                       @JsonProperty(value = "body") String body,
+                       @JsonProperty(value = "parameterCacheTtl") Long parameterCacheTtl,
+                       @JsonProperty(value = "parameterCacheBytes") Long parameterCacheBytes,
+                       @JsonProperty(value = "fanOut") FanOutConfig fanOut,
+                       @JsonProperty(value = "format") FormatConfig format) {
         super(url, headers);
         this.method = method == null ? HttpMethod.GET : method;
         this.body = body;
+        this.parameterCacheTtl = parameterCacheTtl;
+        this.parameterCacheBytes = parameterCacheBytes;
+        this.fanOut = fanOut;
+        this.format = format;
     }
 
     @JsonProperty
@@ -52,6 +74,41 @@ public class QueryConfig extends ServiceConfigBase {
         return body;
     }
 
+    @JsonProperty
+    public Long getParameterCacheTtl() {
+        return parameterCacheTtl;
+    }
+
+    @JsonProperty
+    public Long getParameterCacheBytes() {
+        return parameterCacheBytes;
+    }
+
+    @JsonProperty
+    public FanOutConfig getFanOut() {
+        return fanOut;
+    }
+
+    @JsonProperty
+    public FormatConfig getFormat() {
+        return format;
+    }
+
+    @JsonIgnore
+    public FormatConfig getFormatOrDefault() {
+        return format == null ? FormatConfig.CONTENT : format;
+    }
+
+    @JsonIgnore
+    public boolean isParameterCacheEnabled() {
+        return parameterCacheTtl != null && parameterCacheTtl > 0;
+    }
+
+    @JsonIgnore
+    public long getParameterCacheBytesOrDefault() {
+        return parameterCacheBytes == null || parameterCacheBytes <= 0 ? DEFAULT_PARAMETER_CACHE_BYTES : parameterCacheBytes;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -63,7 +120,11 @@ public class QueryConfig extends ServiceConfigBase {
         return Objects.equals(url, that.url)
                 && Objects.equals(headers, that.headers)
                 && Objects.equals(method, that.method)
-                && Objects.equals(body, that.body);
+                && Objects.equals(body, that.body)
+                && Objects.equals(parameterCacheTtl, that.parameterCacheTtl)
+                && Objects.equals(parameterCacheBytes, that.parameterCacheBytes)
+                && Objects.equals(fanOut, that.fanOut)
+                && Objects.equals(format, that.format);
     }
 
     @Override
@@ -72,6 +133,10 @@ public class QueryConfig extends ServiceConfigBase {
                 ^ Objects.hashCode(url)
                 ^ Objects.hashCode(headers)
                 ^ Objects.hashCode(method)
-                ^ Objects.hashCode(body);
+                ^ Objects.hashCode(body)
+                ^ Objects.hashCode(parameterCacheTtl)
+                ^ Objects.hashCode(parameterCacheBytes)
+                ^ Objects.hashCode(fanOut)
+                ^ Objects.hashCode(format);
     }
 }
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Как ответ сервиса превращается в строки таблицы.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public enum ResponseFormat {
+    /**
+     * Одна строка на ответ: тело в колонке content, заголовки в headers
+     */
+    CONTENT("content", false),
+    /**
+     * Одна строка на ответ: тело без раскодирования в колонке content_raw (VarBinary), кодировка из заголовков в charset
+     */
+    BINARY("binary", false),
+    /**
+     * Строка на каждый элемент массива JSON по пути root
+     */
+    JSON("json", false),
+    /**
+     * Строка на каждый элемент XML по пути root
+     */
+    XML("xml", true),
+    /**
+     * Строка на каждую строку CSV/TSV
+     */
+    CSV("csv", true),
+    /**
+     * Строка на каждый JSON объект в ответе (newline-delimited JSON)
+     */
+    NDJSON("ndjson", true),
+    /**
+     * Строка на каждую строку html таблицы, выбранной css селектором root. Jsoup разбирает страницу целиком,
+     * поэтому ответ читается в память оператора с ее лимитами
+     */
+    HTML_TABLE("html-table", false),
+    /**
+     * Строка на каждый элемент массива CBOR по пути root (или на каждое значение верхнего уровня)
+     */
+    CBOR("cbor", true, "application/cbor"),
+    /**
+     * Как cbor, но в формате Smile
+     */
+    SMILE("smile", true, "application/x-jackson-smile"),
+    /**
+     * Как cbor, но в формате MessagePack
+     */
+    MSGPACK("msgpack", true, "application/msgpack"),
+    /**
+     * Строка на каждую запись Avro: object container file или поток записей по схеме из schema
+     */
+    AVRO("avro", true, "avro/binary"),
+    /**
+     * Строка на каждое сообщение Protobuf из потока length-delimited сообщений типа message
+     */
+    PROTOBUF("protobuf", true, "application/x-protobuf");
+
+    private final String value;
+    private final boolean streamed;
+    private final String mediaType;
+
+    ResponseFormat(String value, boolean streamed) {
+        this(value, streamed, null);
+    }
+
+    ResponseFormat(String value, boolean streamed, String mediaType) {
+        this.value = value;
+        this.streamed = streamed;
+        this.mediaType = mediaType;
+    }
+
+    @JsonValue
+    public String value() {
+        return value;
+    }
+
+    /**
+     * @return записи читаются по порядку прямо из соединения, не дожидаясь конца ответа
+     */
+    public boolean isStreamed() {
+        return streamed;
+    }
+
+    /**
+     * @return тип, который запрашивается у сервиса в Accept, если запрос не задает его сам; null - Accept не нужен
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    @JsonCreator
+    public static ResponseFormat fromValue(String value) {
+        for (ResponseFormat format : values()) {
+            if (format.value.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported response format " + value);
+    }
+}
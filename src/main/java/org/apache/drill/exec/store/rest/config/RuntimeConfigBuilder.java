@@ -51,6 +51,10 @@ public final class RuntimeConfigBuilder {
         HttpMethod method = HttpMethod.GET;
         Map<String, String> headersBuilder = new HashMap<>(config.getHeaders());
         String body  = null;
+        Long parameterCacheTtl = null;
+        Long parameterCacheBytes = null;
+        FanOutConfig fanOut = null;
+        FormatConfig format = null;
 
         QueryConfig existingConfig = config.getQueries().entrySet()
                 .stream()
@@ -63,13 +67,21 @@ public final class RuntimeConfigBuilder {
             method = existingConfig.getMethod();
             headersBuilder.putAll(existingConfig.getHeaders());
             body = existingConfig.getBody();
+            parameterCacheTtl = existingConfig.getParameterCacheTtl();
+            parameterCacheBytes = existingConfig.getParameterCacheBytes();
+            fanOut = existingConfig.getFanOut();
+            format = existingConfig.getFormat();
         }
 
         return new RuntimeQueryConfig(url,
                 config.getUrl(),
                 headersBuilder,
                 method,
-                body);
+                body,
+                parameterCacheTtl,
+                parameterCacheBytes,
+                fanOut,
+                format);
     }
 
 }
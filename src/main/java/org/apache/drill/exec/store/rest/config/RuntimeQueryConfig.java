@@ -17,6 +17,10 @@
  */
 package org.apache.drill.exec.store.rest.config;
 
+import org.apache.commons.lang3.StringUtils;
+
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.Map;
 
 /**
@@ -26,17 +30,41 @@ import java.util.Map;
 public final class RuntimeQueryConfig extends QueryConfig {
 
     private final String baseUrl;
+    private final URI baseUri;
 
     RuntimeQueryConfig(String url,
                        String baseUrl,
                        Map<String, String> headers,
                        HttpMethod method,
-                       String body) {
-        super(url, headers, method, body);
+                       String body,
+                       Long parameterCacheTtl,
+                       Long parameterCacheBytes,
+                       FanOutConfig fanOut,
+                       FormatConfig format) {
+        super(url, headers, method, body, parameterCacheTtl, parameterCacheBytes, fanOut, format);
         this.baseUrl = baseUrl;
+        this.baseUri = parseBaseUri(baseUrl);
     }
 
     public String getBaseUrl() {
         return baseUrl;
     }
+
+    /**
+     * @return разобранный базовый url или null, если он задан шаблоном (или некорректен) и должен собираться для каждого запроса
+     */
+    public URI getBaseUri() {
+        return baseUri;
+    }
+
+    private static URI parseBaseUri(String baseUrl) {
+        if (baseUrl == null || StringUtils.contains(baseUrl, "{{")) {
+            return null;
+        }
+        try {
+            return new URI(baseUrl);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
 }
@@ -19,15 +19,23 @@ package org.apache.drill.exec.store.rest.helpers;
 
 import com.github.jknack.handlebars.Context;
 import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.ValueResolver;
 import com.github.jknack.handlebars.context.MapValueResolver;
 import com.github.jknack.handlebars.helper.StringHelpers;
 import org.apache.drill.shaded.guava.com.google.common.base.Preconditions;
+import org.apache.drill.shaded.guava.com.google.common.cache.CacheBuilder;
+import org.apache.drill.shaded.guava.com.google.common.cache.CacheLoader;
+import org.apache.drill.shaded.guava.com.google.common.cache.LoadingCache;
+import org.apache.drill.shaded.guava.com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.drill.common.exceptions.DrillRuntimeException;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -36,34 +44,98 @@ import java.util.Set;
  */
 public final class HandlebarsHelper {
 
-    private HandlebarsHelper() {
-    }
+    private static final int TEMPLATE_CACHE_SIZE = 1000;
 
+    private static final ValueResolver[] RESOLVERS = ArrayUtils.add(ValueResolver.VALUE_RESOLVERS, 0, new CustomMapValueResolver());
 
-    public static String merge(String input, Map<String, Object> parameters) {
-        Preconditions.checkNotNull(input, "input");
-        Preconditions.checkNotNull(parameters, "parameters");
+    /**
+     * После настройки Handlebars потокобезопасен, поэтому экземпляр один на все шаблоны
+     */
+    private static final Handlebars HANDLEBARS = createHandlebars();
 
-        Context context = Context.newBuilder(parameters)
-                .push(new CustomMapValueResolver())
-                .push(ValueResolver.VALUE_RESOLVERS)
-                .build();
+    private static final LoadingCache<String, Template> TEMPLATES = CacheBuilder.newBuilder()
+            .maximumSize(TEMPLATE_CACHE_SIZE)
+            .build(new CacheLoader<String, Template>() {
+                @Override
+                public Template load(String input) throws IOException {
+                    return HANDLEBARS.compileInline(input);
+                }
+            });
+
+    private static final LoadingCache<String, Optional<SimpleTemplate>> SIMPLE_TEMPLATES = CacheBuilder.newBuilder()
+            .maximumSize(TEMPLATE_CACHE_SIZE)
+            .build(new CacheLoader<String, Optional<SimpleTemplate>>() {
+                @Override
+                public Optional<SimpleTemplate> load(String input) {
+                    return Optional.ofNullable(SimpleTemplate.parse(input, name -> HANDLEBARS.helper(name) != null));
+                }
+            });
 
+    private HandlebarsHelper() {
+    }
+
+    private static Handlebars createHandlebars() {
         Handlebars handlebars = new FixHandlebars()
                 .with(new CollectionFormatter())
                 .infiniteLoops(false);
         EncodeHelpers.register(handlebars);
         StringHelpers.register(handlebars);
+        return handlebars;
+    }
+
+    public static String merge(String input, Map<String, Object> parameters) {
+        Preconditions.checkNotNull(input, "input");
+        Preconditions.checkNotNull(parameters, "parameters");
 
+        //Большинство шаблонов - простые подстановки, для них Handlebars не нужен
+        SimpleTemplate simpleTemplate = SIMPLE_TEMPLATES.getUnchecked(input).orElse(null);
+        if (simpleTemplate != null) {
+            String result = simpleTemplate.apply(parameters, HANDLEBARS.getEscapingStrategy());
+            if (result != null) {
+                return result;
+            }
+        }
+
+        Context context = Context.newBuilder(parameters)
+                .resolver(RESOLVERS)
+                .build();
         try {
-            return handlebars.compileInline(input).apply(context);
+            return TEMPLATES.getUnchecked(input).apply(context);
         } catch (IOException e) {
             throw new DrillRuntimeException(e);
+        } catch (UncheckedExecutionException e) {
+            //Ошибка компиляции шаблона
+            throw new DrillRuntimeException(e.getCause());
+        } finally {
+            context.destroy();
         }
+    }
 
+    /**
+     * То же, что {@link #merge(String, Map)}, но результат пишется в {@code writer}, не собираясь в строку
+     */
+    public static void merge(String input, Map<String, Object> parameters, Writer writer) throws IOException {
+        Preconditions.checkNotNull(input, "input");
+        Preconditions.checkNotNull(parameters, "parameters");
+
+        SimpleTemplate simpleTemplate = SIMPLE_TEMPLATES.getUnchecked(input).orElse(null);
+        if (simpleTemplate != null && simpleTemplate.apply(parameters, HANDLEBARS.getEscapingStrategy(), writer)) {
+            return;
+        }
+
+        Context context = Context.newBuilder(parameters)
+                .resolver(RESOLVERS)
+                .build();
+        try {
+            TEMPLATES.getUnchecked(input).apply(context, writer);
+        } catch (UncheckedExecutionException e) {
+            throw new DrillRuntimeException(e.getCause());
+        } finally {
+            context.destroy();
+        }
     }
 
-    private static class CustomMapValueResolver implements ValueResolver {
+    private static final class CustomMapValueResolver implements ValueResolver {
 
         @Override
         public Object resolve(Object context, String name) {
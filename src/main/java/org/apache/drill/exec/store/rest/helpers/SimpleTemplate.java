@@ -0,0 +1,267 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.helpers;
+
+import com.github.jknack.handlebars.EscapingStrategy;
+import com.github.jknack.handlebars.Handlebars;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Разобранный заранее шаблон из одних подстановок: {@code {{name}}}, {@code {{{name}}}}
+ * и {@code {{encodeUrl name}}}/{@code {{decodeUrl name "encoding"}}}. Рендерится без Handlebars,
+ * результат совпадает с Handlebars; для значений, где это не гарантируется, {@link #apply} возвращает null.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class SimpleTemplate {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_$-]*");
+    private static final Pattern ENCODING = Pattern.compile("\"[A-Za-z0-9_.:-]+\"|'[A-Za-z0-9_.:-]+'");
+
+    private static final int MAX_BUFFER_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final Part[] parts;
+
+    private SimpleTemplate(List<Part> parts) {
+        this.parts = parts.toArray(new Part[0]);
+    }
+
+    /**
+     * @param isHelper имена, занятые хелперами: {@code {{name}}} с таким именем - вызов хелпера
+     * @return null, если шаблон не простой
+     */
+    static SimpleTemplate parse(String input, Predicate<String> isHelper) {
+        List<Part> parts = new ArrayList<>();
+        int position = 0;
+        while (position < input.length()) {
+            int open = input.indexOf("{{", position);
+            if (open < 0) {
+                parts.add(new Part(input.substring(position)));
+                break;
+            }
+            if (open > 0 && input.charAt(open - 1) == '\\') {
+                return null; //Экранированная подстановка
+            }
+            if (open > position) {
+                parts.add(new Part(input.substring(position, open)));
+            }
+
+            boolean raw = input.startsWith("{{{", open);
+            String close = raw ? "}}}" : "}}";
+            int start = open + (raw ? 3 : 2);
+            int end = input.indexOf(close, start);
+            if (end < 0) {
+                return null;
+            }
+
+            Part part = parseExpression(input.substring(start, end), raw, isHelper);
+            if (part == null) {
+                return null;
+            }
+            parts.add(part);
+            position = end + close.length();
+        }
+        return new SimpleTemplate(parts);
+    }
+
+    private static Part parseExpression(String expression, boolean raw, Predicate<String> isHelper) {
+        String[] tokens = StringUtils.split(expression);
+        if (tokens == null || tokens.length == 0 || tokens.length > 3) {
+            return null;
+        }
+
+        EncodeHelpers helper = null;
+        String name = tokens[0];
+        String encoding = null;
+        if (tokens.length > 1) {
+            if (!EncodeHelpers.encodeUrl.name().equals(tokens[0]) && !EncodeHelpers.decodeUrl.name().equals(tokens[0])) {
+                return null;
+            }
+            helper = EncodeHelpers.valueOf(tokens[0]);
+            name = tokens[1];
+            if (tokens.length == 3) {
+                if (!ENCODING.matcher(tokens[2]).matches()) {
+                    return null;
+                }
+                encoding = tokens[2].substring(1, tokens[2].length() - 1);
+            }
+        }
+
+        if (!NAME.matcher(name).matches() || "this".equals(name) || isHelper.test(name)) {
+            return null;
+        }
+        return new Part(name, helper, encoding, !raw);
+    }
+
+    /**
+     * @return результат или null, если значение нужно рендерить через Handlebars
+     */
+    String apply(Map<String, Object> parameters, EscapingStrategy escapingStrategy) {
+        Object[] values = resolve(parameters);
+        if (values == null) {
+            return null;
+        }
+
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        try {
+            write(values, escapingStrategy, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); //StringBuilder не бросает IOException
+        }
+
+        String result = buffer.toString();
+        if (buffer.capacity() > MAX_BUFFER_CAPACITY) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    /**
+     * Пишет результат сразу в {@code writer}
+     *
+     * @return false, если значение нужно рендерить через Handlebars (тогда в writer ничего не записано)
+     */
+    boolean apply(Map<String, Object> parameters, EscapingStrategy escapingStrategy, Writer writer) throws IOException {
+        Object[] values = resolve(parameters);
+        if (values == null) {
+            return false;
+        }
+        write(values, escapingStrategy, writer);
+        return true;
+    }
+
+    /**
+     * @return значения подстановок или null, если хотя бы одно из них нельзя отрендерить без Handlebars
+     */
+    private Object[] resolve(Map<String, Object> parameters) {
+        Object[] values = new Object[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            Part part = parts[i];
+            if (part.text != null) {
+                continue;
+            }
+
+            Object value = parameters.get(part.name);
+            if (value == null) {
+                value = parameters.get(StringUtils.lowerCase(part.name));
+            }
+            //null, false, пустые строки и коллекции Handlebars обрабатывает по своим правилам
+            if (value == null || value instanceof Boolean || Handlebars.Utils.isEmpty(value)) {
+                return null;
+            }
+            if (part.helper == null && !(value instanceof CharSequence
+                    || value instanceof Number
+                    || value instanceof Collection
+                    || value.getClass().isArray())) {
+                return null;
+            }
+            values[i] = value;
+        }
+        return values;
+    }
+
+    private void write(Object[] values, EscapingStrategy escapingStrategy, Appendable out) throws IOException {
+        for (int i = 0; i < parts.length; i++) {
+            Part part = parts[i];
+            if (part.text != null) {
+                out.append(part.text);
+            } else if (part.helper != null) {
+                append(out, applyHelper(part, values[i]), part.escape, escapingStrategy);
+            } else if (values[i] instanceof Collection) {
+                //Как CollectionFormatter: значения через запятую
+                boolean first = true;
+                for (Object item : (Collection<?>) values[i]) {
+                    if (!first) {
+                        out.append(',');
+                    }
+                    append(out, String.valueOf(item), part.escape, escapingStrategy);
+                    first = false;
+                }
+            } else if (values[i].getClass().isArray()) {
+                for (int j = 0; j < Array.getLength(values[i]); j++) {
+                    if (j > 0) {
+                        out.append(',');
+                    }
+                    append(out, String.valueOf(Array.get(values[i], j)), part.escape, escapingStrategy);
+                }
+            } else {
+                append(out, values[i].toString(), part.escape, escapingStrategy);
+            }
+        }
+    }
+
+    private static void append(Appendable out, CharSequence text, boolean escape, EscapingStrategy escapingStrategy) throws IOException {
+        out.append(escape ? escapingStrategy.escape(text) : text);
+    }
+
+    /**
+     * То же, что {@link EncodeHelpers} для непустого значения
+     */
+    private static CharSequence applyHelper(Part part, Object value) {
+        String source = value.toString();
+        String encoding = part.encoding == null ? "UTF-8" : part.encoding;
+        try {
+            return part.helper == EncodeHelpers.encodeUrl
+                    ? URLEncoder.encode(source, encoding)
+                    : URLDecoder.decode(source, encoding);
+        } catch (UnsupportedEncodingException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static final class Part {
+        private final String text;
+        private final String name;
+        private final EncodeHelpers helper;
+        private final String encoding;
+        private final boolean escape;
+
+        private Part(String text) {
+            this(text, null, null, null, false);
+        }
+
+        private Part(String name, EncodeHelpers helper, String encoding, boolean escape) {
+            this(null, name, helper, encoding, escape);
+        }
+
+        private Part(String text, String name, EncodeHelpers helper, String encoding, boolean escape) {
+            this.text = text;
+            this.name = name;
+            this.helper = helper;
+            this.encoding = encoding;
+            this.escape = escape;
+        }
+    }
+}
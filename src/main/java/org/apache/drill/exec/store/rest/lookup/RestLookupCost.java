@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.lookup;
+
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.util.ImmutableBitSet;
+import org.apache.drill.exec.physical.base.ScanStats;
+import org.apache.drill.exec.planner.cost.DrillCostBase;
+import org.apache.drill.exec.store.rest.QueryStatistics;
+import org.apache.drill.exec.store.rest.RestStoragePlugin;
+
+/**
+ * Стоимость lookup join'а в тех же единицах, что и {@link org.apache.drill.exec.store.rest.RestGroupScan#getScanStats()}:
+ * запрос на каждое уникальное значение ключа, ожидание ответа (мс) - единица cpu стоимости.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class RestLookupCost {
+
+    private RestLookupCost() {
+    }
+
+    static RelOptCost compute(RelNode input, RelOptPlanner planner, RelMetadataQuery mq,
+                              RestStoragePlugin plugin, RestLookupSpec spec) {
+        double rows = mq.getRowCount(input);
+        double requests = rows;
+        int key = input.getRowType().getFieldNames().indexOf(spec.getKeyColumn());
+        if (key >= 0) {
+            Double distinct = mq.getDistinctRowCount(input, ImmutableBitSet.of(key), null);
+            if (distinct != null) {
+                requests = Math.min(rows, distinct);
+            }
+        }
+
+        QueryStatistics statistics = plugin.getStatistics().get(spec.getQuery());
+        DrillCostBase.DrillCostFactory costFactory = (DrillCostBase.DrillCostFactory) planner.getCostFactory();
+        return costFactory.makeCost(rows, cpuCost(rows, requests, statistics), 0, 0);
+    }
+
+    /**
+     * @param statistics может быть null - тогда запрос стоит как скан с заданными параметрами
+     */
+    static double cpuCost(double rows, double requests, QueryStatistics statistics) {
+        double requestCost = statistics == null || statistics.getRequests() == 0
+                ? ScanStats.TRIVIAL_TABLE.getCpuCost()
+                : statistics.getLatencyPercentile(0.5);
+        return rows + Math.max(1.0, requests) * requestCost;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.lookup;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import org.apache.drill.common.logical.data.SingleInputOperator;
+import org.apache.drill.common.logical.data.visitors.LogicalVisitor;
+
+/**
+ * Lookup join с REST таблицей в логическом плане (explain)
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+@JsonTypeName("rest-lookup-join")
+public class RestLookupJoin extends SingleInputOperator {
+
+    private final RestLookupSpec spec;
+
+    @JsonCreator
+    public RestLookupJoin(@JsonProperty("spec") RestLookupSpec spec) {
+        this.spec = spec;
+    }
+
+    @JsonProperty
+    public RestLookupSpec getSpec() {
+        return spec;
+    }
+
+    @Override
+    public <T, X, E extends Throwable> T accept(LogicalVisitor<T, X, E> logicalVisitor, X value) throws E {
+        return logicalVisitor.visitOp(this, value);
+    }
+}
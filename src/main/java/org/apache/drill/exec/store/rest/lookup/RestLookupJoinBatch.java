@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.lookup;
+
+import org.apache.drill.common.expression.SchemaPath;
+import org.apache.drill.common.types.TypeProtos.MinorType;
+import org.apache.drill.common.types.Types;
+import org.apache.drill.exec.exception.OutOfMemoryException;
+import org.apache.drill.exec.ops.FragmentContext;
+import org.apache.drill.exec.record.AbstractSingleRecordBatch;
+import org.apache.drill.exec.record.BatchSchema.SelectionVectorMode;
+import org.apache.drill.exec.record.MaterializedField;
+import org.apache.drill.exec.record.RecordBatch;
+import org.apache.drill.exec.record.TransferPair;
+import org.apache.drill.exec.record.TypedFieldId;
+import org.apache.drill.exec.record.VectorWrapper;
+import org.apache.drill.exec.record.selection.SelectionVector2;
+import org.apache.drill.exec.vector.NullableVarCharVector;
+import org.apache.drill.exec.vector.ValueVector;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Добавляет к строкам входного батча ответ сервиса, запрошенный по значению ключевой колонки.
+ * Входные вектора переносятся без копирования; для inner join'а строки без ответа
+ * отбрасываются через {@link SelectionVector2}.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestLookupJoinBatch extends AbstractSingleRecordBatch<RestLookupJoinPOP> {
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RestLookupJoinBatch.class);
+
+    private final RestLookupSpec spec;
+    private final RestLookupService lookupService;
+    private final List<TransferPair> transfers = new ArrayList<>();
+
+    private ValueVector keyVector;
+    private NullableVarCharVector contentVector;
+    private NullableVarCharVector lookupVector;
+    private SelectionVector2 sv2;
+    private int recordCount;
+
+    RestLookupJoinBatch(RestLookupJoinPOP popConfig, FragmentContext context, RecordBatch incoming) throws OutOfMemoryException {
+        super(popConfig, context, incoming);
+        this.spec = popConfig.getSpec();
+        this.lookupService = new RestLookupService(popConfig.getStoragePlugin(),
+                spec,
+                context.getExecutor(),
+                context.getQueryUserName());
+    }
+
+    @Override
+    protected boolean setupNewSchema() {
+        container.clear();
+        transfers.clear();
+
+        for (VectorWrapper<?> vw : incoming) {
+            ValueVector vector = container.addOrGet(vw.getField(), callBack);
+            transfers.add(vw.getValueVector().makeTransferPair(vector));
+        }
+
+        TypedFieldId keyId = incoming.getValueVectorId(SchemaPath.getSimplePath(spec.getKeyColumn()));
+        if (keyId == null) {
+            throw new IllegalStateException("Lookup key column " + spec.getKeyColumn() + " is not found in the incoming batch");
+        }
+        keyVector = incoming.getValueAccessorById(ValueVector.class, keyId.getFieldIds()).getValueVector();
+
+        contentVector = spec.getContentColumn() == null ? null : addVarChar(spec.getContentColumn());
+        lookupVector = spec.getLookupColumn() == null ? null : addVarChar(spec.getLookupColumn());
+
+        if (spec.isInner()) {
+            if (sv2 == null) {
+                sv2 = new SelectionVector2(oContext.getAllocator());
+            }
+            container.buildSchema(SelectionVectorMode.TWO_BYTE);
+        } else {
+            container.buildSchema(SelectionVectorMode.NONE);
+        }
+        return true;
+    }
+
+    private NullableVarCharVector addVarChar(String name) {
+        return container.addOrGet(MaterializedField.create(name, Types.optional(MinorType.VARCHAR)), callBack);
+    }
+
+    @Override
+    protected IterOutcome doWork() {
+        int incomingCount = incoming.getRecordCount();
+
+        //Ключи читаем до переноса векторов
+        String[] keys = new String[incomingCount];
+        Set<String> distinctKeys = new LinkedHashSet<>();
+        ValueVector.Accessor keyAccessor = keyVector.getAccessor();
+        for (int i = 0; i < incomingCount; i++) {
+            Object value = keyAccessor.getObject(i);
+            if (value != null) {
+                keys[i] = value.toString();
+                distinctKeys.add(keys[i]);
+            }
+        }
+
+        Map<String, String> contents = lookupService.lookup(distinctKeys, oContext);
+
+        for (TransferPair transfer : transfers) {
+            transfer.transfer();
+        }
+
+        if (contentVector != null) {
+            contentVector.allocateNew();
+        }
+        if (lookupVector != null) {
+            lookupVector.allocateNew();
+        }
+        if (spec.isInner()) {
+            sv2.allocateNew(incomingCount);
+        }
+
+        int selected = 0;
+        for (int i = 0; i < incomingCount; i++) {
+            String content = keys[i] == null ? null : contents.get(keys[i]);
+            if (content != null && contentVector != null) {
+                contentVector.getMutator().setSafe(i, content.getBytes(StandardCharsets.UTF_8));
+            }
+            if (keys[i] != null && lookupVector != null && (content != null || !spec.isInner())) {
+                lookupVector.getMutator().setSafe(i, keys[i].getBytes(StandardCharsets.UTF_8));
+            }
+            if (spec.isInner() && content != null) {
+                sv2.setIndex(selected++, i);
+            }
+        }
+
+        if (contentVector != null) {
+            contentVector.getMutator().setValueCount(incomingCount);
+        }
+        if (lookupVector != null) {
+            lookupVector.getMutator().setValueCount(incomingCount);
+        }
+        container.setRecordCount(incomingCount);
+
+        if (spec.isInner()) {
+            sv2.setRecordCount(selected);
+            recordCount = selected;
+        } else {
+            recordCount = incomingCount;
+        }
+        return IterOutcome.OK;
+    }
+
+    @Override
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public SelectionVector2 getSelectionVector2() {
+        return sv2;
+    }
+
+    @Override
+    public void dump() {
+        logger.error("RestLookupJoinBatch[container={}, spec={}, recordCount={}]", container, spec, recordCount);
+    }
+
+    @Override
+    public void close() {
+        if (sv2 != null) {
+            sv2.clear();
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.lookup;
+
+import com.fasterxml.jackson.annotation.JacksonInject;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import org.apache.drill.common.exceptions.ExecutionSetupException;
+import org.apache.drill.exec.physical.base.AbstractSingle;
+import org.apache.drill.exec.physical.base.PhysicalOperator;
+import org.apache.drill.exec.physical.base.PhysicalVisitor;
+import org.apache.drill.exec.proto.UserBitShared;
+import org.apache.drill.exec.store.StoragePluginRegistry;
+import org.apache.drill.exec.store.rest.RestStoragePlugin;
+import org.apache.drill.exec.store.rest.RestStoragePluginConfig;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+@JsonTypeName("rest-lookup-join")
+public class RestLookupJoinPOP extends AbstractSingle {
+
+    private final RestStoragePlugin storagePlugin;
+    private final RestStoragePluginConfig storagePluginConfig;
+    private final RestLookupSpec spec;
+
+    @JsonCreator
+    private RestLookupJoinPOP(@JsonProperty("child") PhysicalOperator child,
+                              @JsonProperty("storagePluginConfig") RestStoragePluginConfig storagePluginConfig,
+                              @JsonProperty("spec") RestLookupSpec spec,
+                              @JacksonInject StoragePluginRegistry pluginRegistry) throws ExecutionSetupException {
+        this(child, (RestStoragePlugin) pluginRegistry.getPlugin(storagePluginConfig), spec);
+    }
+
+    RestLookupJoinPOP(PhysicalOperator child, RestStoragePlugin storagePlugin, RestLookupSpec spec) {
+        super(child);
+        this.storagePlugin = storagePlugin;
+        this.storagePluginConfig = storagePlugin.getConfig();
+        this.spec = spec;
+    }
+
+    @JsonProperty
+    public RestStoragePluginConfig getStoragePluginConfig() {
+        return storagePluginConfig;
+    }
+
+    @JsonProperty
+    public RestLookupSpec getSpec() {
+        return spec;
+    }
+
+    @JsonIgnore
+    RestStoragePlugin getStoragePlugin() {
+        return storagePlugin;
+    }
+
+    @Override
+    protected PhysicalOperator getNewWithChild(PhysicalOperator child) {
+        return new RestLookupJoinPOP(child, storagePlugin, spec);
+    }
+
+    @Override
+    public <T, X, E extends Throwable> T accept(PhysicalVisitor<T, X, E> physicalVisitor, X value) throws E {
+        return physicalVisitor.visitOp(this, value);
+    }
+
+    /**
+     * Своего типа у плагина быть не может; ближайший - join, который читает правую сторону по ключам из левой
+     */
+    @Override
+    public int getOperatorType() {
+        return UserBitShared.CoreOperatorType.ROWKEY_JOIN_VALUE;
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.lookup;
+
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.drill.exec.physical.base.PhysicalOperator;
+import org.apache.drill.exec.planner.physical.PhysicalPlanCreator;
+import org.apache.drill.exec.planner.physical.Prel;
+import org.apache.drill.exec.planner.physical.PrelUtil;
+import org.apache.drill.exec.planner.physical.SinglePrel;
+import org.apache.drill.exec.record.BatchSchema.SelectionVectorMode;
+import org.apache.drill.exec.store.rest.RestStoragePlugin;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Физический lookup join с REST таблицей
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestLookupJoinPrel extends SinglePrel {
+
+    private final RelDataType outputRowType;
+    private final RestStoragePlugin plugin;
+    private final RestLookupSpec spec;
+
+    RestLookupJoinPrel(RelOptCluster cluster,
+                       RelTraitSet traits,
+                       RelNode input,
+                       RelDataType outputRowType,
+                       RestStoragePlugin plugin,
+                       RestLookupSpec spec) {
+        super(cluster, traits, input);
+        this.outputRowType = outputRowType;
+        this.plugin = plugin;
+        this.spec = spec;
+    }
+
+    @Override
+    protected RelDataType deriveRowType() {
+        return outputRowType;
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        return new RestLookupJoinPrel(getCluster(), traitSet, sole(inputs), outputRowType, plugin, spec);
+    }
+
+    @Override
+    public PhysicalOperator getPhysicalOperator(PhysicalPlanCreator creator) throws IOException {
+        PhysicalOperator child = ((Prel) getInput()).getPhysicalOperator(creator);
+        return creator.addMetadata(this, new RestLookupJoinPOP(child, plugin, spec));
+    }
+
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+        if (PrelUtil.getSettings(getCluster()).useDefaultCosting()) {
+            return super.computeSelfCost(planner, mq).multiplyBy(.1);
+        }
+        return RestLookupCost.compute(getInput(), planner, mq, plugin, spec);
+    }
+
+    @Override
+    public SelectionVectorMode[] getSupportedEncodings() {
+        return SelectionVectorMode.DEFAULT;
+    }
+
+    @Override
+    public SelectionVectorMode getEncoding() {
+        //Inner join отбрасывает строки без ответа через selection vector, не копируя входные данные
+        return spec.isInner() ? SelectionVectorMode.TWO_BYTE : SelectionVectorMode.NONE;
+    }
+
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+        return super.explainTerms(pw).item("lookup", spec);
+    }
+}
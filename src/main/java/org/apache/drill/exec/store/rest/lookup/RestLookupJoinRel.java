@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.lookup;
+
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.SingleRel;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.drill.common.logical.data.LogicalOperator;
+import org.apache.drill.exec.planner.logical.DrillImplementor;
+import org.apache.drill.exec.planner.logical.DrillRel;
+import org.apache.drill.exec.planner.physical.PrelUtil;
+import org.apache.drill.exec.store.rest.RestStoragePlugin;
+
+import java.util.List;
+
+/**
+ * Логический lookup join с REST таблицей
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestLookupJoinRel extends SingleRel implements DrillRel {
+
+    private final RelDataType outputRowType;
+    private final RestStoragePlugin plugin;
+    private final RestLookupSpec spec;
+
+    RestLookupJoinRel(RelOptCluster cluster,
+                      RelTraitSet traits,
+                      RelNode input,
+                      RelDataType outputRowType,
+                      RestStoragePlugin plugin,
+                      RestLookupSpec spec) {
+        super(cluster, traits, input);
+        this.outputRowType = outputRowType;
+        this.plugin = plugin;
+        this.spec = spec;
+    }
+
+    RestStoragePlugin getPlugin() {
+        return plugin;
+    }
+
+    RestLookupSpec getSpec() {
+        return spec;
+    }
+
+    @Override
+    protected RelDataType deriveRowType() {
+        return outputRowType;
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        return new RestLookupJoinRel(getCluster(), traitSet, sole(inputs), outputRowType, plugin, spec);
+    }
+
+    @Override
+    public LogicalOperator implement(DrillImplementor implementor) {
+        RestLookupJoin join = new RestLookupJoin(spec);
+        join.setInput(implementor.visitChild(this, 0, getInput()));
+        return join;
+    }
+
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+        if (PrelUtil.getSettings(getCluster()).useDefaultCosting()) {
+            return super.computeSelfCost(planner, mq).multiplyBy(.1);
+        }
+        return RestLookupCost.compute(getInput(), planner, mq, plugin, spec);
+    }
+
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+        return super.explainTerms(pw).item("lookup", spec);
+    }
+}
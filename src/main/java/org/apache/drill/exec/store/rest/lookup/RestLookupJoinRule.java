@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.lookup;
+
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.JoinInfo;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.type.RelDataTypeField;
+import org.apache.drill.exec.planner.logical.DrillJoinRel;
+import org.apache.drill.exec.planner.logical.DrillScanRel;
+import org.apache.drill.exec.planner.logical.RelOptHelper;
+import org.apache.drill.exec.store.StoragePluginOptimizerRule;
+import org.apache.drill.exec.store.rest.RestGroupScan;
+import org.apache.drill.exec.store.rest.config.ResponseFormat;
+import org.apache.drill.exec.store.rest.read.RestRecordReader;
+
+import java.util.List;
+
+/**
+ * Заменяет join произвольной таблицы с REST таблицей по колонке ключа lookup'а
+ * ({@code t.id = r.$__rest_lookup}) на {@link RestLookupJoinRel}: запросы к сервису делаются
+ * по значениям ключа из левой стороны, значение передается в шаблон параметром с именем колонки ключа.
+ * <p>
+ * Для колонки ключа отдельное имя, а не {@code $__rest_param}: join по параметрам запроса остается обычным join'ом
+ * с тем же результатом при любом плане, а скан с колонкой ключа без замены на lookup не выполняется
+ * (см. {@link RestGroupScan#isLookupOnly()}).
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestLookupJoinRule extends StoragePluginOptimizerRule {
+
+    public static final RestLookupJoinRule INSTANCE = new RestLookupJoinRule();
+
+    private RestLookupJoinRule() {
+        super(RelOptHelper.some(DrillJoinRel.class, RelOptHelper.any(RelNode.class), RelOptHelper.any(DrillScanRel.class)),
+                "RestLookupJoinRule");
+    }
+
+    @Override
+    public boolean matches(RelOptRuleCall call) {
+        final DrillScanRel scan = call.rel(2);
+        return scan.getGroupScan() instanceof RestGroupScan && super.matches(call);
+    }
+
+    @Override
+    public void onMatch(RelOptRuleCall call) {
+        final DrillJoinRel join = call.rel(0);
+        final RelNode left = call.rel(1);
+        final DrillScanRel scan = call.rel(2);
+        final RestGroupScan groupScan = (RestGroupScan) scan.getGroupScan();
+
+        if (groupScan.isPushedDown()) {
+            return; //Параметры уже заданы фильтром
+        }
+
+        ResponseFormat format = groupScan.getStoragePlugin().getQueryCatalog().get(groupScan.getQuery()).getFormatOrDefault().getType();
+        if (format != ResponseFormat.CONTENT) {
+            return; //Lookup отдает только тело ответа целиком
+        }
+
+        if (join.getJoinType() != JoinRelType.INNER && join.getJoinType() != JoinRelType.LEFT) {
+            return;
+        }
+
+        JoinInfo joinInfo = join.analyzeCondition();
+        if (!joinInfo.isEqui() || joinInfo.leftKeys.size() != 1) {
+            return;
+        }
+
+        List<RelDataTypeField> scanFields = scan.getRowType().getFieldList();
+        String lookupKey = groupScan.getStoragePlugin().getLookupKey();
+        if (!lookupKey.equalsIgnoreCase(scanFields.get(joinInfo.rightKeys.get(0)).getName())) {
+            return;
+        }
+
+        String keyColumn = left.getRowType().getFieldList().get(joinInfo.leftKeys.get(0)).getName();
+
+        // Имена колонок на выходе join'а могут отличаться от имен в скане (например, content0)
+        int leftCount = left.getRowType().getFieldCount();
+        List<RelDataTypeField> joinFields = join.getRowType().getFieldList();
+        String contentColumn = null;
+        String lookupColumn = null;
+        for (int i = 0; i < scanFields.size(); i++) {
+            String name = scanFields.get(i).getName();
+            String outputName = joinFields.get(leftCount + i).getName();
+            if (RestRecordReader.CONTENT_COLUMN.equalsIgnoreCase(name)) {
+                contentColumn = outputName;
+            } else if (lookupKey.equalsIgnoreCase(name)) {
+                lookupColumn = outputName;
+            } else {
+                return; //Параметры, заголовки и прочие колонки lookup не отдает
+            }
+        }
+
+        call.transformTo(new RestLookupJoinRel(join.getCluster(),
+                join.getTraitSet(),
+                left,
+                join.getRowType(),
+                groupScan.getStoragePlugin(),
+                new RestLookupSpec(groupScan.getQuery(),
+                        keyColumn,
+                        contentColumn,
+                        lookupColumn,
+                        join.getJoinType() == JoinRelType.INNER)));
+    }
+}
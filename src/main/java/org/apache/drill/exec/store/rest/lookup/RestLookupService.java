@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.lookup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.drill.shaded.guava.com.google.common.cache.Cache;
+import org.apache.drill.shaded.guava.com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.exec.ops.OperatorContext;
+import org.apache.drill.exec.store.rest.RequestHandler;
+import org.apache.drill.exec.store.rest.RestScanSpec;
+import org.apache.drill.exec.store.rest.RestStoragePlugin;
+import org.apache.drill.exec.store.rest.query.ParameterValue;
+import org.apache.drill.exec.store.rest.read.RestMetric;
+import org.apache.drill.exec.store.rest.read.RestRecordReader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Выполняет запросы lookup join'а: по одному запросу на значение ключа, параллельно
+ * (не более {@code requestConcurrency} одновременно) и с LRU кешем ответов на время жизни фрагмента.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+class RestLookupService {
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RestLookupService.class);
+
+    private final RestStoragePlugin plugin;
+    private final RestLookupSpec spec;
+    private final ExecutorService executor;
+    private final String userName;
+    private final Semaphore permits;
+    private final Cache<String, Optional<String>> cache;
+
+    RestLookupService(RestStoragePlugin plugin, RestLookupSpec spec, ExecutorService executor, String userName) {
+        this.plugin = plugin;
+        this.spec = spec;
+        this.executor = executor;
+        this.userName = userName;
+        this.permits = new Semaphore(plugin.getConfig().getRequestConcurrency());
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(plugin.getConfig().getLookupCacheSize())
+                .build();
+    }
+
+    /**
+     * @return ответы сервиса по ключам. Ключа нет в результате, если сервис вернул пустой ответ
+     */
+    Map<String, String> lookup(Collection<String> keys, OperatorContext context) {
+        Map<String, String> result = new HashMap<>();
+        Map<String, Future<Optional<String>>> pending = new LinkedHashMap<>();
+        List<RequestHandler> handlers = new ArrayList<>();
+        long hits = 0;
+
+        try {
+            for (String key : keys) {
+                Optional<String> cached = cache.getIfPresent(key);
+                if (cached != null) {
+                    hits++;
+                    cached.ifPresent(content -> result.put(key, content));
+                } else if (!pending.containsKey(key)) {
+                    RequestHandler handler = plugin.newRequestHandler(spec.getQuery(), userName);
+                    RestScanSpec scanSpec = createScanSpec(key);
+                    handlers.add(handler);
+
+                    permits.acquire();
+                    try {
+                        pending.put(key, executor.submit(() -> {
+                            try (RequestHandler.Result response = handler.execute(scanSpec)) {
+                                String content = response.getContent();
+                                return Optional.ofNullable(StringUtils.isEmpty(content) ? null : content);
+                            } finally {
+                                permits.release();
+                            }
+                        }));
+                    } catch (RuntimeException e) {
+                        permits.release();
+                        throw e;
+                    }
+                }
+            }
+
+            for (Map.Entry<String, Future<Optional<String>>> entry : pending.entrySet()) {
+                Optional<String> content = entry.getValue().get();
+                cache.put(entry.getKey(), content);
+                content.ifPresent(value -> result.put(entry.getKey(), value));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(pending.values());
+            throw UserException.executionError(e)
+                    .message("REST lookup was interrupted")
+                    .build(logger);
+        } catch (ExecutionException e) {
+            cancel(pending.values());
+            Throwable cause = e.getCause();
+            if (cause instanceof UserException) {
+                throw (UserException) cause;
+            }
+            throw UserException.dataReadError(cause)
+                    .message("Request failure - %s", cause.getMessage())
+                    .addContext("query", spec.getQuery())
+                    .build(logger);
+        } finally {
+            for (RequestHandler handler : handlers) {
+                handler.updateStats(context);
+            }
+            context.getStats().addLongStat(RestMetric.LOOKUP_CACHE_HITS, hits);
+        }
+
+        return result;
+    }
+
+    private RestScanSpec createScanSpec(String key) {
+        Map<String, ParameterValue> parameters = Collections.singletonMap(spec.getKeyColumn(),
+                new ParameterValue(ParameterValue.Type.VALUE, key));
+        try {
+            return new RestScanSpec(spec.getQuery(), RestRecordReader.MAPPER.writeValueAsString(parameters));
+        } catch (JsonProcessingException e) {
+            throw UserException.dataReadError(e).build(logger);
+        }
+    }
+
+    private static void cancel(Collection<Future<Optional<String>>> futures) {
+        for (Future<Optional<String>> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.lookup;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+/**
+ * Параметры lookup join'а: какой запрос выполнять, по какой колонке и куда писать результат.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestLookupSpec {
+
+    private final String query;
+    private final String keyColumn;
+    private final String contentColumn;
+    private final String lookupColumn;
+    private final boolean inner;
+
+    /**
+     * @param keyColumn       колонка левой стороны join'а, ее значение передается в шаблон параметром с тем же именем
+     * @param contentColumn   имя колонки с ответом сервиса на выходе join'а, может быть null
+     * @param lookupColumn    имя колонки ключа lookup'а на выходе join'а (в нее пишется ключ), может быть null
+     * @param inner           true - строки без ответа отбрасываются, false - left join
+     */
+    @JsonCreator
+    public RestLookupSpec(@JsonProperty("query") String query,
+                          @JsonProperty("keyColumn") String keyColumn,
+                          @JsonProperty("contentColumn") String contentColumn,
+                          @JsonProperty("lookupColumn") String lookupColumn,
+                          @JsonProperty("inner") boolean inner) {
+        this.query = query;
+        this.keyColumn = keyColumn;
+        this.contentColumn = contentColumn;
+        this.lookupColumn = lookupColumn;
+        this.inner = inner;
+    }
+
+    @JsonProperty
+    public String getQuery() {
+        return query;
+    }
+
+    @JsonProperty
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    @JsonProperty
+    public String getContentColumn() {
+        return contentColumn;
+    }
+
+    @JsonProperty
+    public String getLookupColumn() {
+        return lookupColumn;
+    }
+
+    @JsonProperty
+    public boolean isInner() {
+        return inner;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RestLookupSpec that = (RestLookupSpec) o;
+        return inner == that.inner
+                && Objects.equals(query, that.query)
+                && Objects.equals(keyColumn, that.keyColumn)
+                && Objects.equals(contentColumn, that.contentColumn)
+                && Objects.equals(lookupColumn, that.lookupColumn);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(query, keyColumn, contentColumn, lookupColumn, inner);
+    }
+
+    @Override
+    public String toString() {
+        return "RestLookupSpec [query=" + query
+                + ", keyColumn=" + keyColumn
+                + ", contentColumn=" + contentColumn
+                + ", lookupColumn=" + lookupColumn
+                + ", inner=" + inner + "]";
+    }
+}
@@ -23,7 +23,6 @@ import org.apache.drill.common.expression.LogicalExpression;
 import org.apache.drill.common.expression.SchemaPath;
 import org.apache.drill.common.expression.ValueExpressions;
 import org.apache.drill.common.expression.visitors.AbstractExprVisitor;
-import org.apache.drill.exec.store.rest.RestGroupScan;
 
 import java.util.Set;
 
@@ -44,10 +43,13 @@ class CompareProcessor extends AbstractExprVisitor<Boolean, LogicalExpression, R
         return COMPARE_FUNCTIONS.contains(function);
     }
 
-    static CompareProcessor process(final FunctionCall call, RestGroupScan scan) {
+    /**
+     * @param parameterColumn колонка параметров запроса ({@code $__<plugin>_param})
+     */
+    static CompareProcessor process(final FunctionCall call, String parameterColumn) {
         LogicalExpression nameArg = call.args.get(0);
         LogicalExpression valueArg = call.args.size() >= 2 ? call.args.get(1) : null;
-        CompareProcessor evaluator = new CompareProcessor(scan);
+        CompareProcessor evaluator = new CompareProcessor(parameterColumn);
 
         if (valueArg != null) { // binary function
             if (VALUE_EXPRESSION_CLASSES.contains(nameArg.getClass())) {
@@ -63,12 +65,12 @@ class CompareProcessor extends AbstractExprVisitor<Boolean, LogicalExpression, R
         return evaluator;
     }
 
-    private final RestGroupScan scan;
+    private final String parameterColumn;
     private boolean success = false;
     private String value;
 
-    private CompareProcessor(RestGroupScan scan) {
-        this.scan = scan;
+    private CompareProcessor(String parameterColumn) {
+        this.parameterColumn = parameterColumn;
     }
 
     boolean isSuccess() {
@@ -91,7 +93,7 @@ class CompareProcessor extends AbstractExprVisitor<Boolean, LogicalExpression, R
             return false;
         }
 
-        boolean success = scan.getStoragePlugin().getRequestParameters().equalsIgnoreCase(path.getRootSegmentPath());
+        boolean success = parameterColumn.equalsIgnoreCase(path.getRootSegmentPath());
         return success && valueArg.accept(this, valueArg);
     }
 
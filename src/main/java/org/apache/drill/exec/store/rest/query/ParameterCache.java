@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.query;
+
+import org.apache.drill.shaded.guava.com.google.common.base.Ticker;
+import org.apache.drill.shaded.guava.com.google.common.cache.Cache;
+import org.apache.drill.shaded.guava.com.google.common.cache.CacheBuilder;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кеш результатов параметров-подзапросов одного запроса (QueryConfig).
+ * Ключ - пользователь, тип параметра и текст SQL; размер ограничен суммарной оценкой
+ * занимаемой значениями памяти в байтах.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public final class ParameterCache {
+
+    /**
+     * Заголовок объекта и ссылка на него - грубая оценка для значений, размер которых неизвестен
+     */
+    private static final int OBJECT_BYTES = 16;
+    private static final int REFERENCE_BYTES = 8;
+
+    private final Cache<List<Object>, Object> cache;
+
+    public ParameterCache(long ttlSeconds, long maxBytes) {
+        this(ttlSeconds, maxBytes, Ticker.systemTicker());
+    }
+
+    ParameterCache(long ttlSeconds, long maxBytes, Ticker ticker) {
+        this.cache = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .maximumWeight(maxBytes)
+                .weigher((List<Object> key, Object value) ->
+                        (int) Math.min(Integer.MAX_VALUE, estimateBytes(key) + estimateBytes(value)))
+                .build();
+    }
+
+    /**
+     * @return null, если значения нет в кеше
+     */
+    public Object get(String userName, ParameterValue.Type type, String sql) {
+        return cache.getIfPresent(key(userName, type, sql));
+    }
+
+    public void put(String userName, ParameterValue.Type type, String sql, Object value) {
+        cache.put(key(userName, type, sql), value);
+    }
+
+    private static List<Object> key(String userName, ParameterValue.Type type, String sql) {
+        return Arrays.asList(userName, type, sql);
+    }
+
+    static long estimateBytes(Object value) {
+        if (value == null) {
+            return REFERENCE_BYTES;
+        } else if (value instanceof CharSequence) {
+            return OBJECT_BYTES * 2 + 2L * ((CharSequence) value).length();
+        } else if (value instanceof byte[]) {
+            return OBJECT_BYTES + ((byte[]) value).length;
+        } else if (value instanceof Collection) {
+            long bytes = OBJECT_BYTES;
+            for (Object item : (Collection<?>) value) {
+                bytes += REFERENCE_BYTES + estimateBytes(item);
+            }
+            return bytes;
+        } else if (value instanceof Map) {
+            long bytes = OBJECT_BYTES;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                bytes += OBJECT_BYTES + estimateBytes(entry.getKey()) + estimateBytes(entry.getValue());
+            }
+            return bytes;
+        }
+        //Числа, даты и прочие небольшие значения
+        return OBJECT_BYTES * 2;
+    }
+}
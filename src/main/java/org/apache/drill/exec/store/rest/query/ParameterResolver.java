@@ -0,0 +1,170 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.query;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.drill.exec.store.rest.read.RestRecordReader;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Разбор параметров запроса и замена параметров-подзапросов (QUERY/SUBQUERY) их значениями.
+ * Результаты подзапросов кешируются на время жизни резолвера, так что одинаковый SQL выполняется один раз.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public final class ParameterResolver {
+
+    private static final TypeReference<Map<String, ParameterValue>> PARAMETERS_TYPE = new TypeReference<Map<String, ParameterValue>>() {
+    };
+
+    private final SubQueryExecutor executor;
+    private final ParameterCache cache;
+    private final String userName;
+    private final Map<String, Object> singleColumnResults = new LinkedHashMap<>();
+    private final Map<String, Map<String, Collection<Object>>> subQueryResults = new LinkedHashMap<>();
+
+    /**
+     * @param cache может быть null
+     */
+    public ParameterResolver(SubQueryExecutor executor, ParameterCache cache, String userName) {
+        this.executor = executor;
+        this.cache = cache;
+        this.userName = userName;
+    }
+
+    public static Map<String, ParameterValue> parse(String parameters) throws IOException {
+        if (StringUtils.isBlank(parameters)) {
+            return Collections.emptyMap();
+        }
+        return RestRecordReader.MAPPER.readValue(parameters, PARAMETERS_TYPE);
+    }
+
+    /**
+     * @return число параметров, для которых нужно выполнить SQL
+     */
+    public static int countQueries(Map<String, ParameterValue> parameters) {
+        int count = 0;
+        for (ParameterValue value : parameters.values()) {
+            if (value != null && value.getType() != ParameterValue.Type.VALUE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return параметры, в которых QUERY/SUBQUERY заменены на VALUE с результатами SQL
+     */
+    public String resolve(String parameters) throws IOException, SQLException {
+        Map<String, ParameterValue> parameterValues = parse(parameters);
+        if (countQueries(parameterValues) == 0) {
+            return parameters;
+        }
+
+        Map<String, ParameterValue> result = new LinkedHashMap<>();
+        for (Map.Entry<String, ParameterValue> entry : parameterValues.entrySet()) {
+            ParameterValue value = entry.getValue();
+            if (value != null && value.getType() == ParameterValue.Type.QUERY) {
+                result.put(entry.getKey(), new ParameterValue(ParameterValue.Type.VALUE, executeSingleColumnQuery(sql(value))));
+            } else if (value != null && value.getType() == ParameterValue.Type.SUBQUERY) {
+                //Как и при выполнении запроса, параметрами становятся колонки подзапроса
+                for (Map.Entry<String, Collection<Object>> column : executeSubQuery(sql(value)).entrySet()) {
+                    result.put(column.getKey(), new ParameterValue(ParameterValue.Type.VALUE, toSerializable(column.getValue())));
+                }
+            } else {
+                result.put(entry.getKey(), value);
+            }
+        }
+        return RestRecordReader.MAPPER.writeValueAsString(result);
+    }
+
+    private Object executeSingleColumnQuery(String sql) throws SQLException {
+        Object result = singleColumnResults.get(sql);
+        if (result == null) {
+            result = cache == null ? null : cache.get(userName, ParameterValue.Type.QUERY, sql);
+            if (result == null) {
+                result = executor.executeSingleColumnQuery(sql);
+                if (cache != null) {
+                    cache.put(userName, ParameterValue.Type.QUERY, sql, result);
+                }
+            }
+            result = toSerializable(result);
+            singleColumnResults.put(sql, result);
+        }
+        return result;
+    }
+
+    private Map<String, Collection<Object>> executeSubQuery(String sql) throws SQLException {
+        Map<String, Collection<Object>> result = subQueryResults.get(sql);
+        if (result == null) {
+            @SuppressWarnings("unchecked")
+            Map<String, Collection<Object>> cached = cache == null
+                    ? null
+                    : (Map<String, Collection<Object>>) cache.get(userName, ParameterValue.Type.SUBQUERY, sql);
+            result = cached;
+            if (result == null) {
+                result = executor.executeSubQuery(sql).asMap();
+                if (cache != null) {
+                    cache.put(userName, ParameterValue.Type.SUBQUERY, sql, result);
+                }
+            }
+            subQueryResults.put(sql, result);
+        }
+        return result;
+    }
+
+    private static String sql(ParameterValue value) {
+        return Objects.toString(value.getValue(), null);
+    }
+
+    /**
+     * Значения из JDBC (даты, decimal и т.п.) переводим в строки - в шаблон они попадут так же, через toString
+     */
+    private static Object toSerializable(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean) {
+            return value;
+        } else if (value instanceof Number && !(value instanceof BigDecimal)) {
+            return value;
+        } else if (value instanceof Collection) {
+            List<Object> result = new ArrayList<>(((Collection<?>) value).size());
+            for (Object item : (Collection<?>) value) {
+                result.add(toSerializable(item));
+            }
+            return result;
+        } else if (value instanceof Map) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                result.put(Objects.toString(entry.getKey(), null), toSerializable(entry.getValue()));
+            }
+            return result;
+        }
+        return value.toString();
+    }
+}
@@ -51,7 +51,7 @@ public final class ParameterValue {
     public enum Type {
         QUERY("query"),
         SUBQUERY("subquery"),
-        @SuppressWarnings("unused") VALUE("value");
+        VALUE("value");
 
         private final String value;
 
@@ -22,70 +22,96 @@ import org.apache.drill.common.expression.BooleanOperator;
 import org.apache.drill.common.expression.FunctionCall;
 import org.apache.drill.common.expression.LogicalExpression;
 import org.apache.drill.common.expression.visitors.AbstractExprVisitor;
-import org.apache.drill.exec.store.rest.RestGroupScan;
 import org.apache.drill.exec.store.rest.RestScanSpec;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
+ * Собирает из фильтра по параметру запроса список запросов (work units).
+ * Условия, объединенные через OR, дают по отдельному запросу на каждое значение. Если хотя бы одну ветку OR
+ * пробросить нельзя, не пробрасывается весь OR: строки этой ветки не вернет ни один запрос с параметрами.
+ *
  * @author Oleg Zinoviev
  * @since 16.06.2017.
  */
-public class RestFilterBuilder extends AbstractExprVisitor<RestScanSpec, Void, RuntimeException> {
+public class RestFilterBuilder extends AbstractExprVisitor<List<RestScanSpec>, Void, RuntimeException> {
 
     private static final String BOOLEAN_AND = "booleanAnd";
     private static final String BOOLEAN_OR = "booleanOr";
 
-    private final RestGroupScan scan;
+    private final String query;
+    private final String parameterColumn;
     private final LogicalExpression expression;
 
-    RestFilterBuilder(RestGroupScan scan, LogicalExpression expression) {
-        this.scan = scan;
+    /**
+     * @param query           имя REST запроса
+     * @param parameterColumn колонка параметров запроса ({@code $__<plugin>_param})
+     */
+    RestFilterBuilder(String query, String parameterColumn, LogicalExpression expression) {
+        this.query = query;
+        this.parameterColumn = parameterColumn;
         this.expression = expression;
     }
 
-    RestScanSpec parseTree() {
+    List<RestScanSpec> parseTree() {
         return expression.accept(this, null);
     }
 
     @Override
-    public RestScanSpec visitFunctionCall(FunctionCall call, Void value) throws RuntimeException {
-        RestScanSpec nodeScanSpec = null;
+    public List<RestScanSpec> visitFunctionCall(FunctionCall call, Void value) throws RuntimeException {
+        List<RestScanSpec> nodeScanSpecs = null;
         String functionName = call.getName();
         ImmutableList<LogicalExpression> args = call.args;
 
         if (CompareProcessor.isCompareFunction(functionName)) {
-            CompareProcessor processor = CompareProcessor.process(call, scan);
+            CompareProcessor processor = CompareProcessor.process(call, parameterColumn);
             if (processor.isSuccess()) {
-                nodeScanSpec = createScanSpec(processor);
+                nodeScanSpecs = Collections.singletonList(createScanSpec(processor));
             }
         } else {
             switch (functionName) {
                 case BOOLEAN_AND:
-                case BOOLEAN_OR:
                     for (int i = 0; i < args.size(); ++i) {
-                        nodeScanSpec = args.get(i).accept(this, null);
-                        if (nodeScanSpec != null) {
+                        nodeScanSpecs = args.get(i).accept(this, null);
+                        if (nodeScanSpecs != null) {
                             break;
                         }
                     }
                     break;
+                case BOOLEAN_OR:
+                    //Каждая ветка OR - отдельный запрос, одинаковые запросы выполняем один раз
+                    Set<RestScanSpec> specs = new LinkedHashSet<>();
+                    for (int i = 0; i < args.size(); ++i) {
+                        List<RestScanSpec> argSpecs = args.get(i).accept(this, null);
+                        if (argSpecs == null) {
+                            return null;
+                        }
+                        specs.addAll(argSpecs);
+                    }
+                    nodeScanSpecs = new ArrayList<>(specs);
+                    break;
             }
         }
 
-        return nodeScanSpec;
+        return nodeScanSpecs;
     }
 
     private RestScanSpec createScanSpec(CompareProcessor processor) {
         String value = processor.getValue();
-        return new RestScanSpec(scan.getSpec().getQuery(), value);
+        return new RestScanSpec(query, value);
     }
 
     @Override
-    public RestScanSpec visitBooleanOperator(BooleanOperator op, Void value) throws RuntimeException {
+    public List<RestScanSpec> visitBooleanOperator(BooleanOperator op, Void value) throws RuntimeException {
         return visitFunctionCall(op, value);
     }
 
     @Override
-    public RestScanSpec visitUnknown(LogicalExpression e, Void value) throws RuntimeException {
+    public List<RestScanSpec> visitUnknown(LogicalExpression e, Void value) throws RuntimeException {
         return null;
     }
 
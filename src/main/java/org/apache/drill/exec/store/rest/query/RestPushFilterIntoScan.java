@@ -35,6 +35,8 @@ import org.apache.drill.exec.store.StoragePluginOptimizerRule;
 import org.apache.drill.exec.store.rest.RestGroupScan;
 import org.apache.drill.exec.store.rest.RestScanSpec;
 
+import java.util.List;
+
 public abstract class RestPushFilterIntoScan extends StoragePluginOptimizerRule {
 
     public static final StoragePluginOptimizerRule FILTER_ON_SCAN = new RestPushFilterOnScan(
@@ -56,14 +58,15 @@ public abstract class RestPushFilterIntoScan extends StoragePluginOptimizerRule
                       final RestGroupScan groupScan,
                       final RexNode condition) {
         final LogicalExpression conditionExp = DrillOptiq.toDrill(new DrillParseContext(PrelUtil.getPlannerSettings(call.getPlanner())), scan, condition);
-        final RestFilterBuilder filterBuilder = new RestFilterBuilder(groupScan, conditionExp);
-        RestScanSpec newScanSpec = filterBuilder.parseTree();
-        if (newScanSpec == null) {
+        final RestFilterBuilder filterBuilder = new RestFilterBuilder(groupScan.getQuery(),
+                groupScan.getStoragePlugin().getRequestParameters(),
+                conditionExp);
+        List<RestScanSpec> newScanSpecs = filterBuilder.parseTree();
+        if (newScanSpecs == null || newScanSpecs.isEmpty()) {
             return null;
         }
 
-        final RestGroupScan newGroupsScan =
-                new RestGroupScan(groupScan.getUserName(), groupScan.getStoragePlugin(), newScanSpec, groupScan.getColumns(), true);
+        final RestGroupScan newGroupsScan = groupScan.pushDown(newScanSpecs);
 
         final RelNode newScanPrel = new ScanPrel(scan.getCluster(), filter.getTraitSet(), newGroupsScan, scan.getRowType(), scan.getTable());
         // Depending on whether is a project in the middle, assign either scan or copy of project to childRel.
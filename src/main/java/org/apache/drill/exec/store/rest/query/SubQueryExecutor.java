@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.query;
+
+import org.apache.drill.shaded.guava.com.google.common.base.Preconditions;
+import org.apache.drill.shaded.guava.com.google.common.collect.ImmutableMultimap;
+import org.apache.drill.shaded.guava.com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выполняет SQL параметров QUERY/SUBQUERY на локальном drillbit'е. JDBC соединения переиспользуются
+ * между запросами: в пуле хранится не более {@code poolSize} свободных соединений.
+ * Для одновременного выполнения подзапросов есть пул потоков того же размера.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public final class SubQueryExecutor implements AutoCloseable {
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SubQueryExecutor.class);
+
+    private final String url;
+    private final BlockingQueue<Connection> pool;
+    private final ThreadPoolExecutor executor;
+    private volatile boolean closed = false;
+
+    public SubQueryExecutor(int userPort, int poolSize) {
+        this.url = "jdbc:drill:drillbit=127.0.0.1:" + userPort;
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.executor = new ThreadPoolExecutor(Math.max(1, poolSize), Math.max(1, poolSize),
+                1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("rest-subquery-%d").setDaemon(true).build());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Выполняет задачу (обычно - подзапрос) в пуле потоков исполнителя
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        Preconditions.checkState(!closed, "Subquery executor is closed");
+        return executor.submit(task);
+    }
+
+    /**
+     * @return значения первой колонки
+     */
+    public List<Object> executeSingleColumnQuery(String sql) throws SQLException {
+        Preconditions.checkNotNull(sql, "Subquery sql is null");
+
+        List<Object> result = new ArrayList<>();
+        Connection connection = borrow();
+        boolean success = false;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                result.add(resultSet.getObject(1));
+            }
+            success = true;
+        } finally {
+            release(connection, success);
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @return значения всех колонок по именам колонок
+     */
+    public ImmutableMultimap<String, Object> executeSubQuery(String sql) throws SQLException {
+        Preconditions.checkNotNull(sql, "Subquery sql is null");
+
+        ImmutableMultimap.Builder<String, Object> result = new ImmutableMultimap.Builder<>();
+        Connection connection = borrow();
+        boolean success = false;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            List<String> columns = new ArrayList<>(metaData.getColumnCount());
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columns.add(metaData.getColumnName(i));
+            }
+
+            while (resultSet.next()) {
+                for (int i = 0; i < columns.size(); i++) {
+                    result.put(columns.get(i), resultSet.getObject(i + 1));
+                }
+            }
+            success = true;
+        } finally {
+            release(connection, success);
+        }
+
+        return result.build();
+    }
+
+    private Connection borrow() throws SQLException {
+        Preconditions.checkState(!closed, "Subquery executor is closed");
+
+        Connection connection;
+        while ((connection = pool.poll()) != null) {
+            if (!connection.isClosed()) {
+                return connection;
+            }
+        }
+        return DriverManager.getConnection(url);
+    }
+
+    private void release(Connection connection, boolean reusable) {
+        //После ошибки состояние соединения неизвестно - не возвращаем его в пул
+        if (reusable && !closed && pool.offer(connection)) {
+            return;
+        }
+        closeQuietly(connection);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        Connection connection;
+        while ((connection = pool.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("Unable to close subquery connection", e);
+        }
+    }
+}
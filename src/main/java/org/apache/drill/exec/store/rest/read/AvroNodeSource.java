@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Записи Avro. Если схема не задана, ответ читается как object container file со схемой в заголовке,
+ * иначе - как поток записей в binary encoding без заголовка.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class AvroNodeSource implements NodeRecordParser.Source {
+
+    private final DataFileStream<Object> file;
+    private final BinaryDecoder decoder;
+    private final GenericDatumReader<Object> reader;
+    private final Schema schema;
+
+    /**
+     * @param schema схема записей или null
+     */
+    AvroNodeSource(InputStream stream, Schema schema) throws IOException {
+        if (schema == null) {
+            this.file = new DataFileStream<>(stream, new GenericDatumReader<>());
+            this.decoder = null;
+            this.reader = null;
+            this.schema = file.getSchema();
+        } else {
+            this.file = null;
+            this.decoder = DecoderFactory.get().binaryDecoder(stream, null);
+            this.reader = new GenericDatumReader<>(schema);
+            this.schema = schema;
+        }
+    }
+
+    /**
+     * @param schema json схемы или путь к локальному файлу с ней; null - схема берется из ответа
+     */
+    static Schema parseSchema(String schema) throws IOException {
+        if (StringUtils.isBlank(schema)) {
+            return null;
+        }
+        String trimmed = schema.trim();
+        if (trimmed.startsWith("{") || trimmed.startsWith("[") || trimmed.startsWith("\"")) {
+            return new Schema.Parser().parse(trimmed);
+        }
+        return new Schema.Parser().parse(new File(trimmed));
+    }
+
+    @Override
+    public JsonNode next() throws IOException {
+        Object record;
+        if (file != null) {
+            if (!file.hasNext()) {
+                return null;
+            }
+            record = file.next();
+        } else {
+            if (decoder.isEnd()) {
+                return null;
+            }
+            record = reader.read(null, decoder);
+        }
+        return toNode(record, schema);
+    }
+
+    static JsonNode toNode(Object value, Schema schema) {
+        if (value == null) {
+            return NodeRecordParser.NODES.nullNode();
+        }
+
+        switch (schema.getType()) {
+            case RECORD: {
+                IndexedRecord record = (IndexedRecord) value;
+                ObjectNode node = NodeRecordParser.NODES.objectNode();
+                for (Schema.Field field : schema.getFields()) {
+                    node.set(field.name(), toNode(record.get(field.pos()), field.schema()));
+                }
+                return node;
+            }
+            case ARRAY: {
+                ArrayNode node = NodeRecordParser.NODES.arrayNode();
+                for (Object element : (Collection<?>) value) {
+                    node.add(toNode(element, schema.getElementType()));
+                }
+                return node;
+            }
+            case MAP: {
+                ObjectNode node = NodeRecordParser.NODES.objectNode();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    node.set(entry.getKey().toString(), toNode(entry.getValue(), schema.getValueType()));
+                }
+                return node;
+            }
+            case UNION:
+                return toNode(value, schema.getTypes().get(GenericData.get().resolveUnion(schema, value)));
+            case FIXED:
+                return NodeRecordParser.NODES.binaryNode(((GenericFixed) value).bytes());
+            case BYTES: {
+                ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                return NodeRecordParser.NODES.binaryNode(bytes);
+            }
+            case INT:
+                return NodeRecordParser.NODES.numberNode((Integer) value);
+            case LONG:
+                return NodeRecordParser.NODES.numberNode((Long) value);
+            case FLOAT:
+                return NodeRecordParser.NODES.numberNode((Float) value);
+            case DOUBLE:
+                return NodeRecordParser.NODES.numberNode((Double) value);
+            case BOOLEAN:
+                return NodeRecordParser.NODES.booleanNode((Boolean) value);
+            case NULL:
+                return NodeRecordParser.NODES.nullNode();
+            default:
+                //STRING и ENUM
+                return NodeRecordParser.NODES.textNode(value.toString());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import org.apache.drill.exec.store.rest.RequestHandler;
+import io.netty.buffer.ByteBuf;
+import org.apache.drill.exec.vector.NullableVarBinaryVector;
+import org.apache.drill.exec.vector.NullableVarCharVector;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Ответ целиком одной строкой: тело копируется из ответа прямо в вектор content (или, без раскодирования,
+ * в content_raw вместе с кодировкой из заголовков), заголовки пишутся в map headers.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class ContentRecordParser implements RecordParser {
+
+    private final RequestHandler.Result result;
+    private final NullableVarCharVector content;
+    private final NullableVarBinaryVector contentRaw;
+    private final VarCharBuffer buffer;
+    private boolean written = false;
+
+    /**
+     * @param content    вектор колонки content или null
+     * @param contentRaw вектор колонки content_raw или null; если нет ни одного, тело не нужно (например, для count(*))
+     */
+    ContentRecordParser(RequestHandler.Result result,
+                        NullableVarCharVector content,
+                        NullableVarBinaryVector contentRaw,
+                        VarCharBuffer buffer) {
+        this.result = result;
+        this.content = content;
+        this.contentRaw = contentRaw;
+        this.buffer = buffer;
+    }
+
+    @Override
+    public boolean write(BaseWriter.ComplexWriter writer) {
+        if (written) {
+            return false;
+        }
+        written = true;
+
+        BaseWriter.MapWriter map = writer.rootAsMap();
+        map.start();
+        if (content != null || contentRaw != null) {
+            if (content != null) {
+                writeContent();
+            } else {
+                writeContentRaw(map);
+            }
+
+            BaseWriter.MapWriter headers = map.map(RestRecordReader.HEADERS_COLUMN);
+            headers.start();
+            for (Map.Entry<String, String> header : result.getHeaders().entrySet()) {
+                if (header.getValue() != null) {
+                    buffer.write(headers.varChar(header.getKey()), header.getValue());
+                }
+            }
+            headers.end();
+        }
+        map.end();
+        return true;
+    }
+
+    private void writeContent() {
+        ByteBuf body = result.getBody();
+        if (body == null) {
+            return;
+        }
+
+        //Тело в UTF-8 копируется как есть, остальные кодировки приходится перекодировать
+        if (!StandardCharsets.UTF_8.equals(result.getCharset()) && !StandardCharsets.US_ASCII.equals(result.getCharset())) {
+            byte[] bytes = result.getContent().getBytes(StandardCharsets.UTF_8);
+            content.getMutator().setSafe(0, bytes, 0, bytes.length);
+            return;
+        }
+        //Ответ - всегда единственная строка первой пачки
+        content.getMutator().setSafe(0, body.nioBuffer(), 0, body.readableBytes());
+    }
+
+    private void writeContentRaw(BaseWriter.MapWriter map) {
+        ByteBuf body = result.getBody();
+        if (body != null) {
+            contentRaw.getMutator().setSafe(0, body.nioBuffer(), 0, body.readableBytes());
+        }
+
+        //Только то, что передал сервис: декларацию xml и умолчания по mime типу здесь не разбираем
+        Charset charset = result.getContentType() == null ? null : result.getContentType().getCharset();
+        if (charset != null) {
+            buffer.write(map.varChar(RestRecordReader.CHARSET_COLUMN), charset.name());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+/**
+ * Записи для count(*), когда число записей уже известно: сами записи не пишутся.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class CountRecordParser implements RecordParser {
+
+    private long remaining;
+
+    CountRecordParser(long count) {
+        this.remaining = count;
+    }
+
+    @Override
+    public boolean write(BaseWriter.ComplexWriter writer) {
+        if (remaining == 0) {
+            return false;
+        }
+        remaining--;
+        return true;
+    }
+}
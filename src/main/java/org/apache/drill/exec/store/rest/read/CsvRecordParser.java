@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Чтение CSV/TSV ответа, как это делает текстовый формат drill'а: с заголовком - колонка VarChar на каждое поле,
+ * без заголовка - все поля строки в массиве columns.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class CsvRecordParser implements RecordParser {
+
+    static final String COLUMNS = "columns";
+
+    private final CsvTokenizer tokenizer;
+    private final boolean header;
+    private final VarCharBuffer buffer;
+    private List<String> names;
+
+    CsvRecordParser(InputStream body,
+                    Charset charset,
+                    char delimiter,
+                    char quote,
+                    boolean header,
+                    VarCharBuffer buffer) {
+        this.tokenizer = new CsvTokenizer(new InputStreamReader(body, charset), delimiter, quote);
+        this.header = header;
+        this.buffer = buffer;
+    }
+
+    @Override
+    public boolean write(BaseWriter.ComplexWriter writer) throws IOException {
+        if (header && names == null) {
+            List<String> headerFields = tokenizer.next();
+            if (headerFields == null) {
+                return false;
+            }
+            names = columnNames(headerFields);
+        }
+
+        List<String> fields = tokenizer.next();
+        if (fields == null) {
+            return false;
+        }
+
+        BaseWriter.MapWriter map = writer.rootAsMap();
+        map.start();
+        if (names == null) {
+            BaseWriter.ListWriter list = map.list(COLUMNS);
+            list.startList();
+            for (String field : fields) {
+                buffer.write(list.varChar(), field);
+            }
+            list.endList();
+        } else {
+            //Лишние поля без заголовка отбрасываются, недостающие остаются null
+            for (int i = 0; i < Math.min(names.size(), fields.size()); i++) {
+                buffer.write(map.varChar(names.get(i)), fields.get(i));
+            }
+        }
+        map.end();
+        return true;
+    }
+
+    /**
+     * Имена колонок регистронезависимы, поэтому повторы и пустые имена переименовываются
+     */
+    static List<String> columnNames(List<String> header) {
+        List<String> names = new ArrayList<>(header.size());
+        Set<String> used = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < header.size(); i++) {
+            String name = StringUtils.trimToNull(header.get(i));
+            if (name == null || used.contains(name)) {
+                name = (name == null ? "column" : name) + "_" + i;
+            }
+            used.add(name);
+            names.add(name);
+        }
+        return names;
+    }
+}
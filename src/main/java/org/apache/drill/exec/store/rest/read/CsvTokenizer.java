@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый разбор CSV/TSV (RFC 4180): поля в кавычках могут содержать разделители и переводы строк,
+ * кавычка внутри экранируется удвоением. Пустые строки пропускаются.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class CsvTokenizer {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char delimiter;
+    private final char quote;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder field = new StringBuilder();
+    private int position = 0;
+    private int limit = 0;
+    private boolean started = false;
+
+    CsvTokenizer(Reader reader, char delimiter, char quote) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.quote = quote;
+    }
+
+    /**
+     * @return поля следующей строки или null, если строки закончились
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                //BOM
+                c = read();
+            }
+        }
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c == EOF) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        while (true) {
+            field.setLength(0);
+            if (c == quote) {
+                c = readQuoted();
+            }
+            while (c != delimiter && c != '\r' && c != '\n' && c != EOF) {
+                field.append((char) c);
+                c = read();
+            }
+            fields.add(field.toString());
+
+            if (c == delimiter) {
+                c = read();
+            } else {
+                return fields;
+            }
+        }
+    }
+
+    /**
+     * Читает значение в кавычках, открывающая кавычка уже прочитана
+     *
+     * @return первый символ после закрывающей кавычки
+     */
+    private int readQuoted() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == EOF) {
+                return c;
+            } else if (c == quote) {
+                c = read();
+                if (c != quote) {
+                    return c;
+                }
+            }
+            field.append((char) c);
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position++];
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Строки html таблицы: страница разбирается один раз, таблица выбирается css селектором.
+ * Имена колонок берутся из первой строки, если она из {@code <th>} (или заголовок включен явно),
+ * иначе ячейки пишутся в массив columns. Ячейки с colspan повторяются, чтобы колонки не съезжали.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class HtmlTableRecordParser implements RecordParser {
+
+    private static final String DEFAULT_SELECTOR = "table";
+
+    private final List<List<String>> rows;
+    private final List<String> names;
+    private final VarCharBuffer buffer;
+    private int next = 0;
+
+    /**
+     * @param charset  кодировка из заголовков ответа, если null - jsoup определяет ее сам
+     * @param selector css селектор таблицы, по умолчанию первая таблица на странице
+     * @param header   true - первая строка всегда заголовок, false - заголовка нет, null - определить по {@code <th>}
+     */
+    HtmlTableRecordParser(InputStream body,
+                          Charset charset,
+                          String selector,
+                          Boolean header,
+                          VarCharBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        Document document = Jsoup.parse(body, charset == null ? null : charset.name(), "");
+        Element table = document.selectFirst(StringUtils.defaultIfBlank(selector, DEFAULT_SELECTOR));
+
+        List<List<String>> rows = new ArrayList<>();
+        boolean headerRow = false;
+        if (table != null) {
+            List<Element> tableRows = rows(table);
+            for (Element row : tableRows) {
+                rows.add(cells(row));
+            }
+            if (!tableRows.isEmpty()) {
+                headerRow = header == null
+                        ? tableRows.get(0).children().stream().allMatch(cell -> "th".equals(cell.tagName()))
+                        : header;
+            }
+        }
+
+        this.names = headerRow ? CsvRecordParser.columnNames(rows.remove(0)) : null;
+        this.rows = rows;
+    }
+
+    @Override
+    public boolean write(BaseWriter.ComplexWriter writer) {
+        if (next >= rows.size()) {
+            return false;
+        }
+        List<String> cells = rows.get(next++);
+
+        BaseWriter.MapWriter map = writer.rootAsMap();
+        map.start();
+        if (names == null) {
+            BaseWriter.ListWriter list = map.list(CsvRecordParser.COLUMNS);
+            list.startList();
+            for (String cell : cells) {
+                buffer.write(list.varChar(), cell);
+            }
+            list.endList();
+        } else {
+            for (int i = 0; i < Math.min(names.size(), cells.size()); i++) {
+                buffer.write(map.varChar(names.get(i)), cells.get(i));
+            }
+        }
+        map.end();
+        return true;
+    }
+
+    /**
+     * Строки самой таблицы, без строк вложенных таблиц
+     */
+    private static List<Element> rows(Element table) {
+        List<Element> rows = new ArrayList<>();
+        for (Element child : table.children()) {
+            if ("tr".equals(child.tagName())) {
+                rows.add(child);
+            } else if ("thead".equals(child.tagName()) || "tbody".equals(child.tagName()) || "tfoot".equals(child.tagName())) {
+                for (Element row : child.children()) {
+                    if ("tr".equals(row.tagName())) {
+                        rows.add(row);
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> cells(Element row) {
+        List<String> cells = new ArrayList<>();
+        for (Element cell : row.children()) {
+            if ("td".equals(cell.tagName()) || "th".equals(cell.tagName())) {
+                int span = Math.max(1, Math.min(100, NumberUtils.toInt(cell.attr("colspan"), 1)));
+                cells.addAll(Collections.nCopies(span, cell.text()));
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.apache.drill.exec.store.rest.config.ResponseFormat;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+import java.io.IOException;
+
+/**
+ * Записи форматов, для которых есть парсер jackson (json, cbor, smile, msgpack). Документ читается потоком:
+ * в дерево собирается только текущая запись.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class JacksonNodeSource implements NodeRecordParser.Source {
+
+    private static final ObjectMapper JSON = mapper(new JsonFactory());
+    private static final ObjectMapper CBOR = mapper(new CBORFactory());
+    private static final ObjectMapper SMILE = mapper(new SmileFactory());
+    private static final ObjectMapper MSGPACK = mapper(new MessagePackFactory());
+
+    private final JsonParser parser;
+    private final JsonPointer root;
+    private boolean started = false;
+    private boolean inArray = false;
+
+    /**
+     * @param parser парсер, созданный {@link #factory}
+     * @param root   путь к массиву записей или к единственной записи. Если путь пустой, а в ответе
+     *               несколько значений верхнего уровня (cbor/msgpack sequence), записями считаются они
+     */
+    JacksonNodeSource(JsonParser parser, JsonPointer root) {
+        this.parser = parser;
+        this.root = root;
+    }
+
+    /**
+     * @return фабрика парсеров формата; для остальных форматов - json
+     */
+    static JsonFactory factory(ResponseFormat format) {
+        switch (format) {
+            case CBOR:
+                return CBOR.getFactory();
+            case SMILE:
+                return SMILE.getFactory();
+            case MSGPACK:
+                return MSGPACK.getFactory();
+            default:
+                return JSON.getFactory();
+        }
+    }
+
+    @Override
+    public JsonNode next() throws IOException {
+        JsonToken token;
+        if (!started) {
+            started = true;
+            if (!JsonRoot.moveTo(parser, root)) {
+                return null;
+            }
+            token = parser.getCurrentToken();
+        } else if (inArray) {
+            token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                //Массив записей закончился, дальше могут быть следующие значения верхнего уровня
+                inArray = false;
+                token = nextTopLevel();
+            }
+        } else {
+            token = nextTopLevel();
+        }
+
+        if (token == JsonToken.START_ARRAY && !inArray) {
+            inArray = true;
+            token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                inArray = false;
+                return next();
+            }
+        }
+        return token == null ? null : parser.readValueAsTree();
+    }
+
+    private JsonToken nextTopLevel() throws IOException {
+        return root.matches() ? parser.nextToken() : null;
+    }
+
+    private static ObjectMapper mapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory);
+        mapper.setNodeFactory(NodeRecordParser.NODES);
+        return mapper;
+    }
+}
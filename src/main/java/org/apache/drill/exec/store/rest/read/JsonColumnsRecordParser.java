@@ -0,0 +1,367 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.TreeNode;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.common.types.TypeProtos.MinorType;
+import org.apache.drill.exec.store.rest.config.ColumnConfig;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Чтение JSON записей в заранее объявленные колонки. Пути колонок собираются в дерево, по которому
+ * записи проходятся потоком токенов: ненужные поля пропускаются, значения сразу пишутся в вектора своего типа,
+ * без JsonReader'а, union'ов и последующих CAST'ов.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class JsonColumnsRecordParser implements RecordParser {
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(JsonColumnsRecordParser.class);
+
+    private final JsonParser parser;
+    private final JsonPointer root;
+    private final List<Column> columns = new ArrayList<>();
+    private final PathNode paths = new PathNode();
+    private final VarCharBuffer buffer;
+    private boolean started = false;
+    private boolean inArray = false;
+    private boolean finished = false;
+
+    /**
+     * @param root путь к массиву записей; null - записи это объекты верхнего уровня (ndjson)
+     */
+    JsonColumnsRecordParser(JsonParser parser,
+                            JsonPointer root,
+                            List<ColumnConfig> columns,
+                            VarCharBuffer buffer) {
+        this.parser = parser;
+        this.root = root;
+        this.buffer = buffer;
+        for (ColumnConfig config : columns) {
+            Column column = new Column(config);
+            this.columns.add(column);
+            paths.add(JsonRoot.compile(config.getPath())).columns.add(column);
+        }
+    }
+
+    @Override
+    public boolean write(BaseWriter.ComplexWriter writer) throws IOException {
+        if (finished || nextRecord() == null) {
+            finished = true;
+            parser.close();
+            return false;
+        }
+
+        BaseWriter.MapWriter map = writer.rootAsMap();
+        map.start();
+        walk(paths, parser, map);
+        map.end();
+        return true;
+    }
+
+    @Override
+    public void ensureColumns(BaseWriter.ComplexWriter writer) {
+        for (Column column : columns) {
+            column.ensure(writer.rootAsMap());
+        }
+    }
+
+    private JsonToken nextRecord() throws IOException {
+        if (root == null) {
+            return parser.nextToken();
+        }
+
+        if (started) {
+            if (!inArray) {
+                return null;
+            }
+            JsonToken token = parser.nextToken();
+            return token == JsonToken.END_ARRAY ? null : token;
+        }
+
+        started = true;
+        if (!JsonRoot.moveTo(parser, root)) {
+            return null;
+        }
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.START_ARRAY) {
+            inArray = true;
+            token = parser.nextToken();
+            return token == JsonToken.END_ARRAY ? null : token;
+        }
+        return token;
+    }
+
+    private void walk(PathNode node, JsonParser parser, BaseWriter.MapWriter map) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (!token.isStructStart()) {
+            for (Column column : node.columns) {
+                column.write(map, parser, token);
+            }
+        } else if (node.hasChildren() && !node.columns.isEmpty()) {
+            //Колонка на весь объект и колонки на его поля: объект читается целиком, поля берутся из прочитанного дерева
+            TreeNode tree = parser.readValueAsTree();
+            String json = tree.toString();
+            for (Column column : node.columns) {
+                column.write(map, json);
+            }
+            try (JsonParser subtree = tree.traverse(parser.getCodec())) {
+                subtree.nextToken();
+                walk(node.withoutColumns(), subtree, map);
+            }
+        } else if (node.hasChildren()) {
+            if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    PathNode child = node.fields.get(parser.getCurrentName());
+                    parser.nextToken();
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else {
+                        walk(child, parser, map);
+                    }
+                }
+            } else {
+                int index = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    PathNode child = node.indexes.get(index++);
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else {
+                        walk(child, parser, map);
+                    }
+                }
+            }
+        } else if (!node.columns.isEmpty()) {
+            //Объект или массив целиком - в VARCHAR пишется его JSON
+            String json = parser.readValueAsTree().toString();
+            for (Column column : node.columns) {
+                column.write(map, json);
+            }
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * @param text дата ({@code 2020-01-31}) или дата со временем в ISO 8601
+     * @return начало дня в мс от эпохи
+     */
+    static long parseDate(String text) {
+        LocalDate date = text.length() <= 10 || text.indexOf('T') < 0
+                ? LocalDate.parse(text, DateTimeFormatter.ISO_DATE)
+                : LocalDate.from(DateTimeFormatter.ISO_DATE_TIME.parse(text));
+        return date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    /**
+     * @param text время в ISO 8601, со смещением или без (тогда UTC); вместо 'T' допускается пробел
+     * @return мс от эпохи
+     */
+    static long parseTimestamp(String text) {
+        if (text.length() == 10) {
+            return parseDate(text);
+        }
+        if (text.length() > 10 && text.charAt(10) == ' ') {
+            text = text.substring(0, 10) + 'T' + text.substring(11);
+        }
+        TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(text, OffsetDateTime::from, LocalDateTime::from);
+        if (parsed instanceof OffsetDateTime) {
+            return ((OffsetDateTime) parsed).toInstant().toEpochMilli();
+        }
+        return ((LocalDateTime) parsed).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Узел дерева путей: колонки, которые заканчиваются здесь, и продолжения путей по именам полей и индексам
+     */
+    private static final class PathNode {
+        private final List<Column> columns = new ArrayList<>();
+        private final Map<String, PathNode> fields = new HashMap<>();
+        private final Map<Integer, PathNode> indexes = new HashMap<>();
+        private PathNode withoutColumns;
+
+        PathNode add(JsonPointer pointer) {
+            if (pointer.matches()) {
+                return this;
+            }
+            PathNode child = fields.computeIfAbsent(pointer.getMatchingProperty(), p -> new PathNode());
+            if (pointer.getMatchingIndex() >= 0) {
+                //"/0" - и поле "0", и нулевой элемент массива
+                indexes.putIfAbsent(pointer.getMatchingIndex(), child);
+            }
+            return child.add(pointer.tail());
+        }
+
+        boolean hasChildren() {
+            return !fields.isEmpty() || !indexes.isEmpty();
+        }
+
+        /**
+         * Тот же узел без своих колонок - для обхода уже прочитанного поддерева
+         */
+        PathNode withoutColumns() {
+            if (withoutColumns == null) {
+                withoutColumns = new PathNode();
+                withoutColumns.fields.putAll(fields);
+                withoutColumns.indexes.putAll(indexes);
+            }
+            return withoutColumns;
+        }
+    }
+
+    private final class Column {
+        private final String name;
+        private final MinorType type;
+
+        Column(ColumnConfig config) {
+            this.name = config.getName();
+            this.type = config.getMinorType();
+        }
+
+        void ensure(BaseWriter.MapWriter map) {
+            switch (type) {
+                case INT:
+                    map.integer(name);
+                    break;
+                case BIGINT:
+                    map.bigInt(name);
+                    break;
+                case FLOAT8:
+                    map.float8(name);
+                    break;
+                case BIT:
+                    map.bit(name);
+                    break;
+                case DATE:
+                    map.date(name);
+                    break;
+                case TIMESTAMP:
+                    map.timeStamp(name);
+                    break;
+                default:
+                    map.varChar(name);
+            }
+        }
+
+        void write(BaseWriter.MapWriter map, JsonParser parser, JsonToken token) throws IOException {
+            if (token == JsonToken.VALUE_NULL) {
+                return;
+            }
+
+            if (type == MinorType.VARCHAR) {
+                buffer.write(map.varChar(name), parser.getText());
+            } else if (token == JsonToken.VALUE_NUMBER_INT) {
+                switch (type) {
+                    case INT:
+                        map.integer(name).writeInt(parser.getIntValue());
+                        break;
+                    case BIGINT:
+                        map.bigInt(name).writeBigInt(parser.getLongValue());
+                        break;
+                    case FLOAT8:
+                        map.float8(name).writeFloat8(parser.getDoubleValue());
+                        break;
+                    case BIT:
+                        map.bit(name).writeBit(parser.getLongValue() == 0 ? 0 : 1);
+                        break;
+                    case DATE:
+                        map.date(name).writeDate(parser.getLongValue());
+                        break;
+                    default:
+                        map.timeStamp(name).writeTimeStamp(parser.getLongValue());
+                }
+            } else if (token == JsonToken.VALUE_NUMBER_FLOAT && type == MinorType.FLOAT8) {
+                map.float8(name).writeFloat8(parser.getDoubleValue());
+            } else if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+                if (type != MinorType.BIT) {
+                    throw conversionError(parser.getText(), null);
+                }
+                map.bit(name).writeBit(token == JsonToken.VALUE_TRUE ? 1 : 0);
+            } else {
+                write(map, parser.getText());
+            }
+        }
+
+        /**
+         * Значение из строки
+         */
+        void write(BaseWriter.MapWriter map, String text) {
+            if (type == MinorType.VARCHAR) {
+                buffer.write(map.varChar(name), text);
+                return;
+            }
+
+            String value = StringUtils.trimToNull(text);
+            if (value == null) {
+                return;
+            }
+
+            try {
+                switch (type) {
+                    case INT:
+                        map.integer(name).writeInt(Integer.parseInt(value));
+                        break;
+                    case BIGINT:
+                        map.bigInt(name).writeBigInt(Long.parseLong(value));
+                        break;
+                    case FLOAT8:
+                        map.float8(name).writeFloat8(Double.parseDouble(value));
+                        break;
+                    case BIT:
+                        if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+                            throw conversionError(value, null);
+                        }
+                        map.bit(name).writeBit("true".equalsIgnoreCase(value) ? 1 : 0);
+                        break;
+                    case DATE:
+                        map.date(name).writeDate(parseDate(value));
+                        break;
+                    default:
+                        map.timeStamp(name).writeTimeStamp(parseTimestamp(value));
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw conversionError(value, e);
+            }
+        }
+
+        private UserException conversionError(String value, Exception cause) {
+            return UserException.dataReadError(cause)
+                    .message("Unable to convert value '%s' of column %s to %s", StringUtils.abbreviate(value, 100), name, type)
+                    .build(logger);
+        }
+    }
+}
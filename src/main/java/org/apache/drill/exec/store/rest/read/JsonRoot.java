@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Путь к записям в JSON ответе. Задается как JSON Pointer ({@code /data/items})
+ * или как JSONPath из имен полей и индексов ({@code $.data.items}, {@code $['data'].items[*]}).
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public final class JsonRoot {
+
+    private static final Pattern PATH_SEGMENT = Pattern.compile("\\.([^.\\[]+)|\\['([^']*)'\\]|\\[\"([^\"]*)\"\\]|\\[(\\d+)\\]|\\[\\*\\]");
+
+    private JsonRoot() {
+    }
+
+    /**
+     * @param root путь или null - тогда записи берутся из корня документа
+     */
+    public static JsonPointer compile(String root) {
+        if (StringUtils.isBlank(root) || "$".equals(root.trim())) {
+            return JsonPointer.compile("");
+        }
+
+        String path = root.trim();
+        if (path.startsWith("/")) {
+            return JsonPointer.compile(path);
+        }
+        if (!path.startsWith("$")) {
+            throw new IllegalArgumentException("Root must be a JSON Pointer or a JSONPath: " + root);
+        }
+
+        StringBuilder pointer = new StringBuilder();
+        Matcher matcher = PATH_SEGMENT.matcher(path);
+        int position = 1;
+        while (position < path.length()) {
+            if (!matcher.find(position) || matcher.start() != position) {
+                throw new IllegalArgumentException("Unsupported JSONPath " + root + ", only field names and indexes are allowed");
+            }
+
+            String segment = null;
+            for (int group = 1; group <= 4 && segment == null; group++) {
+                segment = matcher.group(group);
+            }
+            if (segment == null) {
+                //[*] допустим только в конце пути - это и есть массив записей
+                if (matcher.end() != path.length()) {
+                    throw new IllegalArgumentException("Unsupported JSONPath " + root + ", [*] is allowed only at the end");
+                }
+            } else {
+                pointer.append('/').append(segment.replace("~", "~0").replace("/", "~1"));
+            }
+            position = matcher.end();
+        }
+        return JsonPointer.compile(pointer.toString());
+    }
+
+    /**
+     * Сдвигает парсер на значение по указателю, не строя дерево документа.
+     *
+     * @return false, если такого значения в документе нет
+     */
+    public static boolean moveTo(JsonParser parser, JsonPointer pointer) throws IOException {
+        JsonToken token = parser.nextToken();
+        while (token != null && !pointer.matches()) {
+            if (token == JsonToken.START_OBJECT) {
+                String property = pointer.getMatchingProperty();
+                boolean found = false;
+                while (!found && parser.nextToken() == JsonToken.FIELD_NAME) {
+                    found = property.equals(parser.getCurrentName());
+                    token = parser.nextToken();
+                    if (!found) {
+                        parser.skipChildren();
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                int index = pointer.getMatchingIndex();
+                if (index < 0) {
+                    return false;
+                }
+                token = parser.nextToken();
+                for (int i = 0; i < index && token != JsonToken.END_ARRAY; i++) {
+                    parser.skipChildren();
+                    token = parser.nextToken();
+                }
+                if (token == JsonToken.END_ARRAY) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+            pointer = pointer.tail();
+        }
+        return token != null;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ValueNode;
+import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.exec.store.easy.json.JsonProcessor;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Записи бинарных форматов: каждая запись декодируется в небольшое дерево и пишется тем же JsonReader'ом,
+ * что и в режиме json, так что типы и схема колонок получаются такими же.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class NodeRecordParser implements RecordParser {
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(NodeRecordParser.class);
+
+    /**
+     * JsonReader не умеет бинарные значения - пишем их строкой base64, как при сериализации в json
+     */
+    static final JsonNodeFactory NODES = new JsonNodeFactory(false) {
+        @Override
+        public ValueNode binaryNode(byte[] data) {
+            return data == null ? nullNode() : textNode(Base64.getEncoder().encodeToString(data));
+        }
+
+        @Override
+        public ValueNode binaryNode(byte[] data, int offset, int length) {
+            return data == null ? nullNode() : binaryNode(Arrays.copyOfRange(data, offset, offset + length));
+        }
+    };
+
+    /**
+     * Источник записей
+     */
+    interface Source {
+
+        /**
+         * @return следующая запись или null, если записи закончились
+         */
+        JsonNode next() throws IOException;
+    }
+
+    private final JsonProcessor jsonReader;
+    private final Source records;
+
+    NodeRecordParser(JsonProcessor jsonReader, Source records) {
+        this.jsonReader = jsonReader;
+        this.records = records;
+    }
+
+    @Override
+    public boolean write(BaseWriter.ComplexWriter writer) throws IOException {
+        JsonNode record = records.next();
+        if (record == null) {
+            return false;
+        }
+        if (!record.isObject()) {
+            throw UserException.dataReadError()
+                    .message("Record is not an object: %s", record.getNodeType())
+                    .build(logger);
+        }
+
+        jsonReader.setSource(record);
+        return jsonReader.write(writer) == JsonProcessor.ReadState.WRITE_SUCCEED;
+    }
+}
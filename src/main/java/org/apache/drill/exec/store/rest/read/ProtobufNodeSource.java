@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сообщения Protobuf из потока length-delimited сообщений одного типа. Тип описывается descriptor set'ом
+ * из локального файла, сгенерированные классы не нужны.
+ * <p>
+ * Разбирается runtime'ом protobuf-java 3.x, который идет с drill (в 1.16 - 3.6.1), поэтому proto3 описания понимаются полностью.
+ * Описания на proto2 и proto3 читаются одинаково: proto3 map - массив объектов {key, value},
+ * well-known типы (Timestamp, Any и т.п.) - обычные сообщения, неизвестные полю номера пропускаются.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class ProtobufNodeSource implements NodeRecordParser.Source {
+
+    private final InputStream stream;
+    private final Descriptors.Descriptor descriptor;
+
+    ProtobufNodeSource(InputStream stream, Descriptors.Descriptor descriptor) {
+        this.stream = stream;
+        this.descriptor = descriptor;
+    }
+
+    /**
+     * @param descriptorSet путь к файлу descriptor set ({@code protoc --include_imports --descriptor_set_out})
+     * @param message       полное имя типа сообщения, например {@code com.example.Item}
+     */
+    static Descriptors.Descriptor loadDescriptor(String descriptorSet, String message) throws IOException {
+        DescriptorProtos.FileDescriptorSet set;
+        try (InputStream input = new FileInputStream(descriptorSet)) {
+            set = DescriptorProtos.FileDescriptorSet.parseFrom(input);
+        }
+
+        Map<String, DescriptorProtos.FileDescriptorProto> protos = new HashMap<>();
+        for (DescriptorProtos.FileDescriptorProto proto : set.getFileList()) {
+            protos.put(proto.getName(), proto);
+        }
+
+        Map<String, Descriptors.FileDescriptor> files = new HashMap<>();
+        for (DescriptorProtos.FileDescriptorProto proto : set.getFileList()) {
+            Descriptors.Descriptor descriptor = findMessage(buildFile(proto.getName(), protos, files), message);
+            if (descriptor != null) {
+                return descriptor;
+            }
+        }
+        throw new IllegalArgumentException("Message type " + message + " is not found in " + descriptorSet);
+    }
+
+    private static Descriptors.FileDescriptor buildFile(String name,
+                                                        Map<String, DescriptorProtos.FileDescriptorProto> protos,
+                                                        Map<String, Descriptors.FileDescriptor> files) throws IOException {
+        Descriptors.FileDescriptor file = files.get(name);
+        if (file != null) {
+            return file;
+        }
+
+        DescriptorProtos.FileDescriptorProto proto = protos.get(name);
+        if (proto == null) {
+            throw new IllegalArgumentException("Descriptor set has no " + name + ", build it with --include_imports");
+        }
+        List<String> dependencyNames = proto.getDependencyList();
+        Descriptors.FileDescriptor[] dependencies = new Descriptors.FileDescriptor[dependencyNames.size()];
+        for (int i = 0; i < dependencies.length; i++) {
+            dependencies[i] = buildFile(dependencyNames.get(i), protos, files);
+        }
+        try {
+            file = Descriptors.FileDescriptor.buildFrom(proto, dependencies);
+        } catch (Descriptors.DescriptorValidationException e) {
+            throw new IOException("Invalid descriptor " + name, e);
+        }
+        files.put(name, file);
+        return file;
+    }
+
+    private static Descriptors.Descriptor findMessage(Descriptors.FileDescriptor file, String message) {
+        String name = message;
+        if (StringUtils.isNotEmpty(file.getPackage())) {
+            if (!message.startsWith(file.getPackage() + ".")) {
+                return null;
+            }
+            name = message.substring(file.getPackage().length() + 1);
+        }
+
+        String[] path = name.split("\\.");
+        Descriptors.Descriptor descriptor = file.findMessageTypeByName(path[0]);
+        for (int i = 1; i < path.length && descriptor != null; i++) {
+            descriptor = descriptor.findNestedTypeByName(path[i]);
+        }
+        return descriptor;
+    }
+
+    @Override
+    public JsonNode next() throws IOException {
+        DynamicMessage.Builder builder = DynamicMessage.newBuilder(descriptor);
+        if (!builder.mergeDelimitedFrom(stream)) {
+            return null;
+        }
+        return toNode(builder.build());
+    }
+
+    /**
+     * Поля без значения (в proto3 - со значением по умолчанию) не пишутся, как и в JsonFormat
+     */
+    private static ObjectNode toNode(Message message) {
+        ObjectNode node = NodeRecordParser.NODES.objectNode();
+        for (Map.Entry<Descriptors.FieldDescriptor, Object> field : message.getAllFields().entrySet()) {
+            if (field.getKey().isRepeated()) {
+                ArrayNode array = node.putArray(field.getKey().getName());
+                for (Object value : (List<?>) field.getValue()) {
+                    array.add(toNode(field.getKey(), value));
+                }
+            } else {
+                node.set(field.getKey().getName(), toNode(field.getKey(), field.getValue()));
+            }
+        }
+        return node;
+    }
+
+    private static JsonNode toNode(Descriptors.FieldDescriptor field, Object value) {
+        switch (field.getJavaType()) {
+            case MESSAGE:
+                return toNode((Message) value);
+            case ENUM:
+                return NodeRecordParser.NODES.textNode(((Descriptors.EnumValueDescriptor) value).getName());
+            case BYTE_STRING:
+                return NodeRecordParser.NODES.binaryNode(((ByteString) value).toByteArray());
+            case INT:
+                return NodeRecordParser.NODES.numberNode((Integer) value);
+            case LONG:
+                return NodeRecordParser.NODES.numberNode((Long) value);
+            case FLOAT:
+                return NodeRecordParser.NODES.numberNode((Float) value);
+            case DOUBLE:
+                return NodeRecordParser.NODES.numberNode((Double) value);
+            case BOOLEAN:
+                return NodeRecordParser.NODES.booleanNode((Boolean) value);
+            default:
+                return NodeRecordParser.NODES.textNode(value.toString());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+import java.io.IOException;
+
+/**
+ * Разбирает ответ сервиса на записи и пишет их прямо в вектора, без промежуточного JSON.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+interface RecordParser {
+
+    /**
+     * Пишет следующую запись в текущую позицию writer'а
+     *
+     * @return false, если записи закончились
+     */
+    boolean write(BaseWriter.ComplexWriter writer) throws IOException;
+
+    /**
+     * Создает вектора колонок, которые должны быть в каждой пачке, даже пустой
+     */
+    default void ensureColumns(BaseWriter.ComplexWriter writer) {
+    }
+}
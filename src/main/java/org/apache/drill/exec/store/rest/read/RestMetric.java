@@ -27,7 +27,12 @@ public enum RestMetric implements MetricDef {
     TIME_SUBQUERIES,
     TIME_REQUEST,
     TIME_RESULT_SCAN,
-    TOTAL_SCAN;
+    TOTAL_SCAN,
+    TIME_REQUEST_WAIT,
+    LOOKUP_CACHE_HITS,
+    REQUESTS_SKIPPED,
+    TIME_SUBQUERIES_CRITICAL_PATH,
+    PARAMETER_CACHE_HITS;
 
     @Override
     public int metricId() {
@@ -18,26 +18,49 @@
 package org.apache.drill.exec.store.rest.read;
 
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.drill.shaded.guava.com.google.common.base.Stopwatch;
 import org.apache.drill.common.exceptions.ExecutionSetupException;
 import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.common.types.TypeProtos;
+import org.apache.drill.common.types.Types;
 import org.apache.drill.exec.ExecConstants;
 import org.apache.drill.exec.ops.FragmentContext;
 import org.apache.drill.exec.ops.OperatorContext;
 import org.apache.drill.exec.physical.impl.OutputMutator;
+import org.apache.drill.exec.record.MaterializedField;
 import org.apache.drill.exec.store.AbstractRecordReader;
 import org.apache.drill.exec.store.easy.json.JsonProcessor;
 import org.apache.drill.exec.store.easy.json.reader.CountingJsonReader;
 import org.apache.drill.exec.store.rest.RequestHandler;
-import org.apache.drill.exec.store.rest.RestSubScan;
+import org.apache.drill.exec.store.rest.RequestQueue;
+import org.apache.drill.exec.store.rest.RestStatisticsStore;
+import org.apache.drill.exec.store.rest.config.FormatConfig;
+import org.apache.drill.exec.store.rest.config.ResponseFormat;
+import org.apache.drill.exec.vector.NullableVarBinaryVector;
+import org.apache.drill.exec.vector.NullableVarCharVector;
 import org.apache.drill.exec.vector.complex.fn.JsonReader;
 import org.apache.drill.exec.vector.complex.impl.VectorContainerWriter;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.DrillBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.commons.io.input.ReaderInputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.entity.ContentType;
+
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
 
 import static org.apache.drill.exec.store.easy.json.JSONRecordReader.DEFAULT_ROWS_PER_BATCH;
@@ -49,14 +72,19 @@ import static org.apache.drill.exec.store.easy.json.JSONRecordReader.DEFAULT_ROW
 public class RestRecordReader extends AbstractRecordReader {
     public static final ObjectMapper MAPPER = new ObjectMapper();
 
-    private static final String CONTENT_COLUMN = "content";
-    private static final String HEADERS_COLUMN = "headers";
+    public static final String CONTENT_COLUMN = "content";
+    public static final String HEADERS_COLUMN = "headers";
+    public static final String CONTENT_RAW_COLUMN = "content_raw";
+    public static final String CHARSET_COLUMN = "charset";
 
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RestRecordReader.class);
 
     private final FragmentContext fragmentContext;
-    private final RestSubScan scan;
-    private final RequestHandler requestHandler;
+    private final RequestQueue requests;
+    private final RequestQueue.Request request;
+    private final String parameterColumn;
+    private final FormatConfig format;
+    private final RestStatisticsStore statistics;
     private final boolean enableAllTextMode;
     private final boolean readNumbersAsDouble;
     private final boolean unionEnabled;
@@ -64,19 +92,34 @@ public class RestRecordReader extends AbstractRecordReader {
     private final boolean enableEscapeAnyChar;
 
     private JsonProcessor jsonReader;
+    private RecordParser recordParser;
+    private NullableVarCharVector content;
+    private NullableVarBinaryVector contentRaw;
     private VectorContainerWriter writer;
     private JsonProcessor.ReadState write = null;
     private long totalScanTime = 0L;
     private long totalScanRecords = 0;
     private OperatorContext operatorContext;
+    private boolean finished = false;
+    private boolean skipped = false;
+    private boolean drained = false;
+    private RequestHandler.Result result;
+    private DrillBuf parameters;
+    private int parametersLength;
 
 
     public RestRecordReader(FragmentContext fragmentContext,
-                            RestSubScan scan,
-                            RequestHandler requestHandler) {
+                            RequestQueue requests,
+                            int index,
+                            String parameterColumn,
+                            FormatConfig format,
+                            RestStatisticsStore statistics) {
         this.fragmentContext = fragmentContext;
-        this.scan = scan;
-        this.requestHandler = requestHandler;
+        this.requests = requests;
+        this.request = requests.get(index);
+        this.parameterColumn = parameterColumn;
+        this.format = format;
+        this.statistics = statistics;
 
         this.enableAllTextMode = fragmentContext.getOptions().getOption(ExecConstants.JSON_READER_ALL_TEXT_MODE_VALIDATOR);
         this.readNumbersAsDouble = fragmentContext.getOptions().getOption(ExecConstants.JSON_READ_NUMBERS_AS_DOUBLE_VALIDATOR);
@@ -103,6 +146,14 @@ public class RestRecordReader extends AbstractRecordReader {
                         .defaultSchemaPathColumns()
                         .build();
             }
+            if (format.getType() == ResponseFormat.CONTENT && !isSkipQuery()) {
+                //Тело ответа пишется в вектор напрямую, минуя writer
+                this.content = output.addField(MaterializedField.create(CONTENT_COLUMN, Types.optional(TypeProtos.MinorType.VARCHAR)),
+                        NullableVarCharVector.class);
+            } else if (format.getType() == ResponseFormat.BINARY && !isSkipQuery()) {
+                this.contentRaw = output.addField(MaterializedField.create(CONTENT_RAW_COLUMN, Types.optional(TypeProtos.MinorType.VARBINARY)),
+                        NullableVarBinaryVector.class);
+            }
             setupParser();
         } catch (final Throwable e) {
             handleAndRaise(e);
@@ -110,15 +161,303 @@ public class RestRecordReader extends AbstractRecordReader {
     }
 
     private void setupParser() throws IOException, URISyntaxException, ExecutionSetupException {
-        RequestHandler.Result result = requestHandler.execute(scan, operatorContext, fragmentContext.getConfig());
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        result = request.await();
+        operatorContext.getStats().addLongStat(RestMetric.TIME_REQUEST_WAIT, stopwatch.stop().elapsed(TimeUnit.MILLISECONDS));
+        if (result == null) {
+            //Запрос отброшен runtime фильтром
+            operatorContext.getStats().addLongStat(RestMetric.REQUESTS_SKIPPED, 1);
+            skipped = true;
+            return;
+        }
+        request.getHandler().updateStats(operatorContext);
+
+        switch (format.getType()) {
+            case JSON:
+                setupParameters();
+                if (format.getColumns().isEmpty()) {
+                    setupRecords(result);
+                } else {
+                    setupColumns(result, JsonRoot.compile(format.getRoot()));
+                }
+                break;
+            case XML:
+                setupParameters();
+                setupXml(result);
+                break;
+            case CSV:
+                setupParameters();
+                setupCsv(result);
+                break;
+            case NDJSON:
+                setupParameters();
+                if (format.getColumns().isEmpty()) {
+                    setupNdjson(result);
+                } else {
+                    setupColumns(result, null);
+                }
+                break;
+            case HTML_TABLE:
+                setupParameters();
+                setupHtmlTable(result);
+                break;
+            case CBOR:
+            case SMILE:
+            case MSGPACK:
+            case AVRO:
+            case PROTOBUF:
+                setupParameters();
+                setupBinary(result);
+                break;
+            default:
+                setupParameters();
+                recordParser = new ContentRecordParser(result, content, contentRaw, new VarCharBuffer(fragmentContext.getManagedBuffer()));
+        }
+    }
+
+    /**
+     * Записи - элементы массива по пути root. Массив отдается JsonReader'у потоком прямо из тела ответа,
+     * без промежуточного дерева и повторной сериализации.
+     */
+    private void setupRecords(RequestHandler.Result result) throws IOException {
+        ByteBuf body = result.getBody();
+        if (body == null) {
+            jsonReader.setSource(new ByteArrayInputStream(new byte[0]));
+            return;
+        }
+
+        //JSON без явной кодировки jackson определяет сам, остальные перекодируем в UTF-8
+        Charset charset = declaredCharset(result);
+        if (charset != null && !StandardCharsets.UTF_8.equals(charset) && !StandardCharsets.US_ASCII.equals(charset)) {
+            body = Unpooled.wrappedBuffer(body.toString(charset).getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (JsonParser parser = MAPPER.getFactory().createParser(new ByteBufInputStream(body.slice()))) {
+            parser.configure(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS, enableNanInf);
+            parser.configure(JsonParser.Feature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER, enableEscapeAnyChar);
+
+            JsonPointer root = JsonRoot.compile(format.getRoot());
+            boolean found;
+            if (isSkipQuery()) {
+                //CountingJsonReader читает только поток объектов - записи считаем сами, пока проходим массив
+                long count = countRecords(parser, root);
+                found = count >= 0;
+                recordParser = new CountRecordParser(Math.max(0, count));
+            } else {
+                found = setRecordsSource(jsonReader, parser, body, root);
+            }
+            if (!found) {
+                throw UserException.dataReadError()
+                        .message("JSON root %s of query %s is neither an array nor an object", format.getRoot(), request.getSpec().getQuery())
+                        .build(logger);
+            }
+        }
+    }
+
+    /**
+     * @param parser парсер тела ответа {@code body}, еще не начавший чтение
+     * @return false, если по пути root не массив и не объект
+     */
+    static boolean setRecordsSource(JsonProcessor jsonReader, JsonParser parser, ByteBuf body, JsonPointer root) throws IOException {
+        if (!JsonRoot.moveTo(parser, root)) {
+            jsonReader.setSource(new ByteArrayInputStream(new byte[0]));
+        } else if (parser.getCurrentToken() == JsonToken.START_ARRAY) {
+            long offset = parser.getTokenLocation().getByteOffset();
+            if (offset < 0) {
+                //Позиция в байтах недоступна (UTF-16/32) - читаем массив деревом
+                JsonNode records = parser.readValueAsTree();
+                if (records.size() == 0) {
+                    jsonReader.setSource(new ByteArrayInputStream(new byte[0]));
+                } else {
+                    jsonReader.setSource(records);
+                }
+            } else if (skipElements(parser) == 0) {
+                //Пустой массив JsonReader считает ошибкой
+                jsonReader.setSource(new ByteArrayInputStream(new byte[0]));
+            } else {
+                //JsonReader проверяет, что после массива документ кончается, поэтому отдаем ему только массив
+                long end = parser.getCurrentLocation().getByteOffset();
+                jsonReader.setSource(new ByteBufInputStream(body.slice((int) offset, (int) (end - offset))));
+            }
+        } else if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+            jsonReader.setSource((JsonNode) parser.readValueAsTree());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Число записей для count(*): элементы массива по пути root, 1 для объекта
+     *
+     * @param parser парсер тела ответа, еще не начавший чтение
+     * @return -1, если по пути root не массив и не объект
+     */
+    static long countRecords(JsonParser parser, JsonPointer root) throws IOException {
+        if (!JsonRoot.moveTo(parser, root)) {
+            return 0;
+        } else if (parser.getCurrentToken() == JsonToken.START_ARRAY) {
+            return skipElements(parser);
+        } else if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+            return 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Проходит массив, на начале которого стоит парсер, до его конца
+     *
+     * @return число элементов
+     */
+    private static long skipElements(JsonParser parser) throws IOException {
+        long count = 0;
+        for (JsonToken token = parser.nextToken(); token != null && token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            parser.skipChildren();
+            count++;
+        }
+        return count;
+    }
+
+    private void setupXml(RequestHandler.Result result) throws IOException {
+        if (result.getStream() == null) {
+            jsonReader.setSource(new ByteArrayInputStream(new byte[0]));
+        } else {
+            recordParser = new XmlRecordParser(result.getStream(),
+                    declaredCharset(result),
+                    format.getRoot(),
+                    format.getNamespaces(),
+                    new VarCharBuffer(fragmentContext.getManagedBuffer()));
+        }
+    }
+
+    private void setupCsv(RequestHandler.Result result) {
+        if (result.getStream() == null) {
+            jsonReader.setSource(new ByteArrayInputStream(new byte[0]));
+        } else {
+            Charset charset = declaredCharset(result);
+            recordParser = new CsvRecordParser(result.getStream(),
+                    charset == null ? StandardCharsets.UTF_8 : charset,
+                    format.getDelimiterChar(),
+                    format.getQuoteChar(),
+                    format.isHeader(),
+                    new VarCharBuffer(fragmentContext.getManagedBuffer()));
+        }
+    }
+
+    private void setupHtmlTable(RequestHandler.Result result) throws IOException {
+        if (result.getStream() == null) {
+            jsonReader.setSource(new ByteArrayInputStream(new byte[0]));
+        } else {
+            recordParser = new HtmlTableRecordParser(result.getStream(),
+                    declaredCharset(result),
+                    format.getRoot(),
+                    format.getHeader(),
+                    new VarCharBuffer(fragmentContext.getManagedBuffer()));
+        }
+    }
 
-        JsonNodeFactory factory = JsonNodeFactory.withExactBigDecimals(false);
+    /**
+     * Бинарные форматы. На Accept сервис может ответить json'ом - тогда ответ читается как json
+     */
+    private void setupBinary(RequestHandler.Result result) throws IOException {
+        if (result.getStream() == null) {
+            jsonReader.setSource(new ByteArrayInputStream(new byte[0]));
+            return;
+        }
 
-        ObjectNode rootNode = factory.objectNode();
-        rootNode.set(CONTENT_COLUMN, factory.textNode(result.getContent()));
-        rootNode.set(HEADERS_COLUMN, MAPPER.valueToTree(result.getHeaders()));
+        ContentType contentType = result.getContentType();
+        boolean json = contentType != null
+                && (ContentType.APPLICATION_JSON.getMimeType().equalsIgnoreCase(contentType.getMimeType())
+                || StringUtils.endsWithIgnoreCase(contentType.getMimeType(), "+json"));
+        NodeRecordParser.Source records;
+        if (json || format.getType() == ResponseFormat.CBOR || format.getType() == ResponseFormat.SMILE || format.getType() == ResponseFormat.MSGPACK) {
+            JsonParser parser = JacksonNodeSource.factory(json ? ResponseFormat.JSON : format.getType())
+                    .createParser(json ? utf8Stream(result) : result.getStream());
+            parser.configure(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS, enableNanInf);
+            parser.configure(JsonParser.Feature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER, enableEscapeAnyChar);
+            JsonPointer root = JsonRoot.compile(format.getRoot());
+            if (!format.getColumns().isEmpty()) {
+                recordParser = new JsonColumnsRecordParser(parser, root, format.getColumns(), new VarCharBuffer(fragmentContext.getManagedBuffer()));
+                return;
+            }
+            records = new JacksonNodeSource(parser, root);
+        } else if (format.getType() == ResponseFormat.AVRO) {
+            records = new AvroNodeSource(result.getStream(), AvroNodeSource.parseSchema(format.getSchema()));
+        } else {
+            records = new ProtobufNodeSource(result.getStream(), ProtobufNodeSource.loadDescriptor(format.getSchema(), format.getMessage()));
+        }
+        recordParser = new NodeRecordParser(jsonReader, records);
+    }
 
-        jsonReader.setSource(rootNode);
+    /**
+     * Объекты читаются JsonReader'ом прямо из соединения по мере того, как ScanBatch запрашивает пачки
+     */
+    private void setupNdjson(RequestHandler.Result result) throws IOException {
+        InputStream stream = utf8Stream(result);
+        jsonReader.setSource(stream == null ? new ByteArrayInputStream(new byte[0]) : stream);
+    }
+
+    /**
+     * Колонки объявлены в конфигурации - пишем только их, сразу в нужных типах
+     *
+     * @param root путь к массиву записей; null - записи это объекты верхнего уровня (ndjson)
+     */
+    private void setupColumns(RequestHandler.Result result, JsonPointer root) throws IOException {
+        InputStream stream = utf8Stream(result);
+        if (stream == null) {
+            jsonReader.setSource(new ByteArrayInputStream(new byte[0]));
+            return;
+        }
+
+        JsonParser parser = MAPPER.getFactory().createParser(stream);
+        parser.configure(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS, enableNanInf);
+        parser.configure(JsonParser.Feature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER, enableEscapeAnyChar);
+        recordParser = new JsonColumnsRecordParser(parser,
+                root,
+                format.getColumns(),
+                new VarCharBuffer(fragmentContext.getManagedBuffer()));
+    }
+
+    /**
+     * @return тело ответа потоком в кодировке, которую понимает jackson, или null
+     */
+    private InputStream utf8Stream(RequestHandler.Result result) {
+        InputStream stream = result.getStream();
+        Charset charset = declaredCharset(result);
+        if (stream != null && charset != null && !StandardCharsets.UTF_8.equals(charset) && !StandardCharsets.US_ASCII.equals(charset)) {
+            stream = new ReaderInputStream(new InputStreamReader(stream, charset), StandardCharsets.UTF_8);
+        }
+        return stream;
+    }
+
+    /**
+     * @return кодировка из конфигурации формата или заголовков ответа, null - если не задана ни там, ни там
+     */
+    private Charset declaredCharset(RequestHandler.Result result) {
+        if (format.getCharset() != null) {
+            return Charset.forName(format.getCharset());
+        }
+        return result.getContentType() == null ? null : result.getContentType().getCharset();
+    }
+
+    /**
+     * В режиме записей параметры запроса пишутся в каждую строку
+     */
+    private void setupParameters() {
+        String specParameters = request.getSpec().getParameters();
+        if (specParameters != null && !isSkipQuery()) {
+            byte[] bytes = specParameters.getBytes(StandardCharsets.UTF_8);
+            parameters = fragmentContext.getManagedBuffer(bytes.length);
+            parameters.setBytes(0, bytes);
+            parametersLength = bytes.length;
+        }
+    }
+
+    private void writeParameters() {
+        if (parameters != null) {
+            //Нужна для join'а по параметрам запроса
+            writer.rootAsMap().varChar(parameterColumn).writeVarChar(0, parametersLength, parameters);
+        }
     }
 
     private void handleAndRaise(Throwable e) throws UserException {
@@ -148,6 +487,14 @@ public class RestRecordReader extends AbstractRecordReader {
         try {
             writer.allocate();
             writer.reset();
+            if (skipped) {
+                finished = true;
+                jsonReader.ensureAtLeastOneField(writer);
+                writer.setValueCount(0);
+                setContentValueCount(0);
+                drained = true;
+                return recordCount;
+            }
             if (write == JsonProcessor.ReadState.JSON_RECORD_PARSE_EOF_ERROR) {
                 return recordCount;
             }
@@ -155,20 +502,31 @@ public class RestRecordReader extends AbstractRecordReader {
             while (recordCount < DEFAULT_ROWS_PER_BATCH) {
                 try {
                     writer.setPosition(recordCount);
-                    write = jsonReader.write(writer);
+                    if (recordParser == null) {
+                        write = jsonReader.write(writer);
+                    } else {
+                        write = recordParser.write(writer) ? JsonProcessor.ReadState.WRITE_SUCCEED : JsonProcessor.ReadState.END_OF_STREAM;
+                    }
                     if (write == JsonProcessor.ReadState.WRITE_SUCCEED) {
+                        writeParameters();
                         recordCount++;
                     } else if (write == JsonProcessor.ReadState.JSON_RECORD_PARSE_ERROR || write == JsonProcessor.ReadState.JSON_RECORD_PARSE_EOF_ERROR) {
-                        handleAndRaise(new Exception(scan.getSpec().getQuery() + " : line nos :" + (recordCount + 1)));
+                        handleAndRaise(new Exception(request.getSpec().getQuery() + " : line nos :" + (recordCount + 1)));
                     } else {
+                        finished = true;
                         break;
                     }
                 } catch (IOException ex) {
                     handleAndRaise(ex);
                 }
             }
+            if (recordParser != null) {
+                recordParser.ensureColumns(writer);
+            }
             jsonReader.ensureAtLeastOneField(writer);
             writer.setValueCount(recordCount);
+            setContentValueCount(recordCount);
+            drained = finished && recordCount == 0;
             return recordCount;
         } finally {
             totalScanTime += stopwatch.stop().elapsed(TimeUnit.MILLISECONDS);
@@ -176,6 +534,15 @@ public class RestRecordReader extends AbstractRecordReader {
         }
     }
 
+    private void setContentValueCount(int recordCount) {
+        if (content != null) {
+            content.getMutator().setValueCount(recordCount);
+        }
+        if (contentRaw != null) {
+            contentRaw.getMutator().setValueCount(recordCount);
+        }
+    }
+
     private void updateStats() {
         operatorContext.getStats().addLongStat(RestMetric.TIME_RESULT_SCAN, totalScanTime);
         operatorContext.getStats().addLongStat(RestMetric.TOTAL_SCAN, totalScanRecords);
@@ -183,7 +550,18 @@ public class RestRecordReader extends AbstractRecordReader {
 
     @Override
     public void close() throws Exception {
+        if (finished && !skipped) {
+            statistics.record(request.getSpec().getQuery(), totalScanRecords, result.getContentLength(), request.getHandler().getRequestTime());
+        }
+        if (!drained) {
+            //Ридер закрывают раньше времени (отмена/ошибка/limit) - остальные запросы уже не нужны,
+            //а их ответы надо вернуть в аллокатор до закрытия оператора
+            requests.close();
+        }
         updateStats();
         writer.close();
+        if (result != null) {
+            result.close();
+        }
     }
 }
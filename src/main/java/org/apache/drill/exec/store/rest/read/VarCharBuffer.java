@@ -0,0 +1,48 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.exec.vector.complex.writer.VarCharWriter;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Переиспользуемый буфер для записи строк в VarChar вектора.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class VarCharBuffer {
+
+    private DrillBuf buffer;
+
+    /**
+     * @param buffer managed буфер фрагмента, при нехватке места перевыделяется
+     */
+    VarCharBuffer(DrillBuf buffer) {
+        this.buffer = buffer;
+    }
+
+    void write(VarCharWriter writer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer = buffer.reallocIfNeeded(bytes.length);
+        buffer.setBytes(0, bytes);
+        writer.writeVarChar(0, bytes.length, buffer);
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Потоковое чтение XML ответа: каждая запись - элемент по пути root. В памяти держится только текущая запись.
+ * Поля записи получаются как в xml_to_json: атрибуты и дочерние элементы по локальным именам,
+ * повторяющиеся элементы - списком, текст элемента с атрибутами или детьми - в поле content, все значения - строки.
+ * <p>
+ * Путь - имена элементов через "/". Абсолютный путь ({@code /soap:Envelope/soap:Body/m:Items/m:Item})
+ * сравнивается со всей цепочкой элементов, относительный ({@code m:Item}) - с ее концом.
+ * Префиксы берутся из namespaces конфигурации, имя без префикса совпадает с элементом из любого namespace,
+ * {@code *} - с любым элементом. Без пути записи - дочерние элементы корня документа.
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class XmlRecordParser implements RecordParser {
+
+    static final String CONTENT_FIELD = "content";
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private final XMLStreamReader reader;
+    private final List<QName> path;
+    private final boolean absolute;
+    private final List<QName> elements = new ArrayList<>();
+    private final VarCharBuffer buffer;
+
+    /**
+     * @param charset кодировка из заголовков ответа, если null - берется из декларации xml
+     */
+    XmlRecordParser(InputStream body,
+                    Charset charset,
+                    String root,
+                    Map<String, String> namespaces,
+                    VarCharBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        String path = StringUtils.isBlank(root) ? "/*/*" : root.trim();
+        this.absolute = path.startsWith("/") && !path.startsWith("//");
+        this.path = parsePath(StringUtils.removeStart(path, "//"), namespaces == null ? Collections.emptyMap() : namespaces);
+
+        try {
+            this.reader = charset == null
+                    ? FACTORY.createXMLStreamReader(body)
+                    : FACTORY.createXMLStreamReader(body, charset.name());
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean write(BaseWriter.ComplexWriter writer) throws IOException {
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    elements.add(reader.getName());
+                    if (matches()) {
+                        Element record = readElement();
+                        elements.remove(elements.size() - 1);
+                        if (record.isText() && !record.text.isEmpty()) {
+                            record.add(CONTENT_FIELD, record.text);
+                        }
+
+                        BaseWriter.MapWriter map = writer.rootAsMap();
+                        map.start();
+                        writeFields(map, record);
+                        map.end();
+                        return true;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    elements.remove(elements.size() - 1);
+                }
+            }
+            reader.close();
+            return false;
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private boolean matches() {
+        int offset = elements.size() - path.size();
+        if (offset < 0 || (absolute && offset != 0)) {
+            return false;
+        }
+
+        for (int i = 0; i < path.size(); i++) {
+            QName expected = path.get(i);
+            QName actual = elements.get(offset + i);
+            if (!"*".equals(expected.getLocalPart())
+                    && (!expected.getLocalPart().equals(actual.getLocalPart())
+                    || (!expected.getNamespaceURI().isEmpty() && !expected.getNamespaceURI().equals(actual.getNamespaceURI())))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Читает текущий элемент до закрывающего тега
+     */
+    private Element readElement() throws XMLStreamException {
+        Element element = new Element();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.add(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                Element child = readElement();
+                element.add(name, child.isText() ? child.text : child);
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+
+        String value = text.toString().trim();
+        if (element.fields.isEmpty()) {
+            element.text = value;
+        } else if (!value.isEmpty()) {
+            element.add(CONTENT_FIELD, value);
+        }
+        return element;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeFields(BaseWriter.MapWriter map, Element element) {
+        for (Map.Entry<String, Object> field : element.fields.entrySet()) {
+            Object value = field.getValue();
+            if (value instanceof String) {
+                buffer.write(map.varChar(field.getKey()), (String) value);
+            } else if (value instanceof Element) {
+                BaseWriter.MapWriter child = map.map(field.getKey());
+                child.start();
+                writeFields(child, (Element) value);
+                child.end();
+            } else {
+                List<Object> values = (List<Object>) value;
+                //Если хотя бы один элемент - структура, то и строки пишем структурами, иначе получится union
+                boolean hasElements = values.stream().anyMatch(v -> v instanceof Element);
+
+                BaseWriter.ListWriter list = map.list(field.getKey());
+                list.startList();
+                for (Object item : values) {
+                    if (hasElements) {
+                        BaseWriter.MapWriter child = list.map();
+                        child.start();
+                        if (item instanceof Element) {
+                            writeFields(child, (Element) item);
+                        } else {
+                            buffer.write(child.varChar(CONTENT_FIELD), (String) item);
+                        }
+                        child.end();
+                    } else {
+                        buffer.write(list.varChar(), (String) item);
+                    }
+                }
+                list.endList();
+            }
+        }
+    }
+
+    private static List<QName> parsePath(String path, Map<String, String> namespaces) {
+        List<QName> result = new ArrayList<>();
+        for (String segment : StringUtils.split(path, '/')) {
+            int separator = segment.indexOf(':');
+            if (separator < 0) {
+                //Пустой namespace - любой
+                result.add(new QName(segment));
+            } else {
+                String prefix = segment.substring(0, separator);
+                String namespace = namespaces.get(prefix);
+                if (namespace == null) {
+                    throw new IllegalArgumentException("Unknown namespace prefix " + prefix + " in record path " + path);
+                }
+                result.add(new QName(namespace, segment.substring(separator + 1)));
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("Empty record path");
+        }
+        return result;
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Разобранный элемент: значения полей - строки, вложенные элементы или их списки
+     */
+    private static final class Element {
+        private final Map<String, Object> fields = new LinkedHashMap<>();
+        private String text;
+
+        boolean isText() {
+            return text != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        void add(String name, Object value) {
+            Object existing = fields.get(name);
+            if (existing == null) {
+                fields.put(name, value);
+            } else if (existing instanceof List) {
+                ((List<Object>) existing).add(value);
+            } else {
+                List<Object> values = new ArrayList<>();
+                values.add(existing);
+                values.add(value);
+                fields.put(name, values);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class QueryStatisticsTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testAverage() {
+        QueryStatistics statistics = QueryStatistics.empty()
+                .record(10, 100, 5)
+                .record(20, 300, 15);
+
+        Assert.assertEquals(2, statistics.getRequests());
+        Assert.assertEquals(15, statistics.getRows(), DELTA);
+        Assert.assertEquals(200, statistics.getBytes(), DELTA);
+    }
+
+    @Test
+    public void testMovingAverage() {
+        QueryStatistics statistics = QueryStatistics.empty();
+        for (int i = 0; i < 100; i++) {
+            statistics = statistics.record(10, 0, 1);
+        }
+        Assert.assertEquals(10, statistics.getRows(), DELTA);
+
+        //После окна новое значение весит 1/100, а не 1/101
+        statistics = statistics.record(110, 0, 1);
+        Assert.assertEquals(11, statistics.getRows(), DELTA);
+    }
+
+    @Test
+    public void testLatencies() {
+        QueryStatistics statistics = QueryStatistics.empty();
+        Assert.assertEquals(0, statistics.getLatencyPercentile(0.5));
+
+        for (long latency = 1; latency <= 200; latency++) {
+            statistics = statistics.record(1, 1, latency);
+        }
+        Assert.assertEquals(128, statistics.getLatencies().size());
+        Assert.assertEquals(73, statistics.getLatencyPercentile(0));
+        Assert.assertEquals(136, statistics.getLatencyPercentile(0.5));
+        Assert.assertEquals(200, statistics.getLatencyPercentile(1));
+    }
+
+    @Test
+    public void testMerge() {
+        QueryStatistics first = QueryStatistics.empty().record(10, 100, 5);
+        QueryStatistics second = QueryStatistics.empty().record(20, 300, 15).record(20, 300, 25);
+
+        QueryStatistics merged = first.merge(second);
+        Assert.assertEquals(3, merged.getRequests());
+        Assert.assertEquals(50.0 / 3, merged.getRows(), DELTA);
+        Assert.assertEquals(700.0 / 3, merged.getBytes(), DELTA);
+        Assert.assertEquals(Arrays.asList(5L, 15L, 25L), merged.getLatencies());
+
+        Assert.assertSame(first, first.merge(QueryStatistics.empty()));
+        Assert.assertSame(second, QueryStatistics.empty().merge(second));
+    }
+
+    @Test
+    public void testMergeKeepsLastLatencies() {
+        QueryStatistics first = QueryStatistics.empty();
+        QueryStatistics second = QueryStatistics.empty();
+        for (long latency = 1; latency <= 100; latency++) {
+            first = first.record(1, 1, latency);
+            second = second.record(1, 1, latency + 100);
+        }
+
+        QueryStatistics merged = first.merge(second);
+        Assert.assertEquals(200, merged.getRequests());
+        Assert.assertEquals(128, merged.getLatencies().size());
+        Assert.assertEquals(73, merged.getLatencyPercentile(0));
+        Assert.assertEquals(200, merged.getLatencyPercentile(1));
+    }
+
+    @Test
+    public void testInitialAllocation() {
+        Assert.assertEquals(100, RestSubScan.estimateInitialAllocation(null));
+        Assert.assertEquals(100, RestSubScan.estimateInitialAllocation(QueryStatistics.empty()));
+        Assert.assertEquals(100, RestSubScan.estimateInitialAllocation(QueryStatistics.empty().record(1, 10, 1)));
+        Assert.assertEquals(4096, RestSubScan.estimateInitialAllocation(QueryStatistics.empty().record(1, 4096, 1)));
+    }
+}
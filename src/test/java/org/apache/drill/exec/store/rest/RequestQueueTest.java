@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.drill.common.exceptions.ExecutionSetupException;
+import org.apache.drill.exec.memory.BufferAllocator;
+import org.apache.drill.exec.memory.RootAllocator;
+import org.apache.drill.exec.store.rest.config.QueryConfig;
+import org.apache.drill.exec.store.rest.config.RuntimeConfigBuilder;
+import org.apache.drill.exec.store.rest.config.RuntimeQueryConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RequestQueueTest {
+
+    private static final int BODY_SIZE = 64 * 1024;
+
+    private final CountDownLatch requested = new CountDownLatch(1);
+    private final CountDownLatch respond = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+    private HttpServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        //Сервис отвечает, только когда тест разрешит
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/items", exchange -> {
+            requested.countDown();
+            try {
+                respond.await();
+                exchange.sendResponseHeaders(200, BODY_SIZE);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(new byte[BODY_SIZE]);
+                }
+            } catch (Exception e) {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        respond.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+        //Закрытие аллокатора падает, если буферы не вернулись
+        allocator.close();
+    }
+
+    @Test(timeout = 30000)
+    public void testCloseAfterInterruptedAwait() throws Exception {
+        RequestQueue queue = queue();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread reader = await(queue, error);
+        Assert.assertTrue(requested.await(10, TimeUnit.SECONDS));
+
+        //Ридер перестал ждать, а ответ пришел уже после этого
+        reader.interrupt();
+        reader.join();
+        Assert.assertTrue(error.get() instanceof ExecutionSetupException);
+        respond.countDown();
+        while (allocator.getAllocatedMemory() == 0) {
+            Thread.sleep(10);
+        }
+
+        queue.close();
+        Assert.assertEquals(0, allocator.getAllocatedMemory());
+    }
+
+    @Test(timeout = 30000)
+    public void testCloseAbortsRunning() throws Exception {
+        RequestQueue queue = queue();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread reader = await(queue, error);
+        Assert.assertTrue(requested.await(10, TimeUnit.SECONDS));
+
+        //Сервис так и не ответил: close() прерывает запрос и не ждет ответа
+        queue.close();
+        reader.join();
+        Assert.assertNotNull(error.get());
+        Assert.assertEquals(0, allocator.getAllocatedMemory());
+    }
+
+    private RequestQueue queue() {
+        QueryConfig query = new QueryConfig("http://localhost:" + server.getAddress().getPort() + "/items",
+                null, null, null, null, null, null, null);
+        RuntimeQueryConfig config = new RuntimeConfigBuilder()
+                .withQuery("items")
+                .withRootConfig(new RestStoragePluginConfig(null, null, Collections.singletonMap("items", query), null))
+                .build();
+        ResponseMemory memory = new ResponseMemory(allocator, new ConcurrentHashMap<>(), "query", Long.MAX_VALUE, Long.MAX_VALUE);
+        return new RequestQueue(executor,
+                () -> new RequestHandler(config, null, null, "user"),
+                Collections.singletonList(new RestScanSpec("items", null)),
+                2,
+                spec -> true,
+                memory);
+    }
+
+    private static Thread await(RequestQueue queue, AtomicReference<Throwable> error) {
+        Thread reader = new Thread(() -> {
+            try {
+                queue.get(0).await().close();
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        reader.start();
+        return reader;
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.exec.memory.BufferAllocator;
+import org.apache.drill.exec.memory.RootAllocator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class ResponseMemoryTest {
+
+    private static final int KB = 1024;
+
+    private final BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+    private final ConcurrentMap<String, Long> queries = new ConcurrentHashMap<>();
+
+    @After
+    public void tearDown() {
+        //Закрытие аллокатора падает, если буферы не вернулись
+        allocator.close();
+    }
+
+    @Test
+    public void testContentLength() throws Exception {
+        ResponseMemory memory = memory(64 * KB, 64 * KB);
+        DrillBuf body = memory.read(body(64 * KB), 64 * KB, "items");
+        Assert.assertEquals(64 * KB, body.readableBytes());
+        Assert.assertEquals(64 * KB, (long) queries.get("query"));
+
+        memory.release(body);
+        Assert.assertTrue(queries.isEmpty());
+    }
+
+    @Test
+    public void testContentLengthOverLimit() throws Exception {
+        ResponseMemory memory = memory(64 * KB, Long.MAX_VALUE);
+        InputStream stream = body(128 * KB);
+        try {
+            memory.read(stream, 128 * KB, "items");
+            Assert.fail();
+        } catch (UserException e) {
+            //Тело не читается вовсе
+            Assert.assertEquals(128 * KB, stream.available());
+        }
+        Assert.assertTrue(queries.isEmpty());
+    }
+
+    @Test
+    public void testWithoutContentLength() throws Exception {
+        //В лимит помещается тело, копирование кусков в итоговый буфер не учитывается
+        ResponseMemory memory = memory(256 * KB, 256 * KB);
+        DrillBuf body = memory.read(body(256 * KB), -1, "items");
+        Assert.assertEquals(256 * KB, body.readableBytes());
+        Assert.assertEquals(body.capacity(), (long) queries.get("query"));
+        Assert.assertEquals((byte) (100 * KB), body.getByte(100 * KB));
+
+        memory.release(body);
+        Assert.assertTrue(queries.isEmpty());
+    }
+
+    @Test
+    public void testWrongContentLength() throws Exception {
+        ResponseMemory memory = memory(Long.MAX_VALUE, Long.MAX_VALUE);
+        DrillBuf body = memory.read(body(128 * KB + 1), 64 * KB, "items");
+        Assert.assertEquals(128 * KB + 1, body.readableBytes());
+
+        memory.release(body);
+        Assert.assertTrue(queries.isEmpty());
+    }
+
+    @Test(expected = UserException.class)
+    public void testWithoutContentLengthOverLimit() throws Exception {
+        memory(256 * KB, Long.MAX_VALUE).read(body(256 * KB + 1), -1, "items");
+    }
+
+    @Test
+    public void testQueryLimit() throws Exception {
+        //Лимит на запрос общий для всех сканов
+        ResponseMemory first = memory(Long.MAX_VALUE, 192 * KB);
+        ResponseMemory second = memory(Long.MAX_VALUE, 192 * KB);
+        DrillBuf body = first.read(body(128 * KB), -1, "items");
+        try {
+            second.read(body(128 * KB), -1, "items");
+            Assert.fail();
+        } catch (UserException e) {
+            Assert.assertEquals(body.capacity(), (long) queries.get("query"));
+        } finally {
+            first.release(body);
+        }
+        Assert.assertTrue(queries.isEmpty());
+    }
+
+    private ResponseMemory memory(long operatorLimit, long queryLimit) {
+        return new ResponseMemory(allocator, queries, "query", operatorLimit, queryLimit);
+    }
+
+    private static InputStream body(int size) {
+        byte[] body = new byte[size];
+        for (int i = 0; i < size; i++) {
+            body[i] = (byte) i;
+        }
+        return new ByteArrayInputStream(body);
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import org.apache.drill.common.expression.SchemaPath;
+import org.apache.drill.exec.physical.EndpointAffinity;
+import org.apache.drill.exec.planner.fragment.DistributionAffinity;
+import org.apache.drill.exec.planner.fragment.Fragment;
+import org.apache.drill.exec.planner.fragment.HardAffinityFragmentParallelizer;
+import org.apache.drill.exec.planner.fragment.ParallelizationParameters;
+import org.apache.drill.exec.planner.fragment.Stats;
+import org.apache.drill.exec.planner.fragment.Wrapper;
+import org.apache.drill.exec.proto.CoordinationProtos.DrillbitEndpoint;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestGroupScanTest {
+
+    private static final DrillbitEndpoint FIRST = endpoint("bit1");
+    private static final DrillbitEndpoint SECOND = endpoint("bit2");
+    private static final DrillbitEndpoint OTHER = endpoint("bit3");
+
+    private static final List<DrillbitEndpoint> EGRESS = Arrays.asList(FIRST, SECOND);
+    private static final List<DrillbitEndpoint> CLUSTER = Arrays.asList(FIRST, SECOND, OTHER);
+
+    @Test
+    public void testAffinities() {
+        List<EndpointAffinity> affinities = RestGroupScan.egressAffinities(EGRESS, 1);
+        Assert.assertEquals(1, affinities.size());
+        Assert.assertTrue(affinities.get(0).isAssignmentRequired());
+
+        Assert.assertEquals(2, RestGroupScan.egressAffinities(EGRESS, 5).size());
+    }
+
+    @Test
+    public void testSingleRequest() throws Exception {
+        Wrapper wrapper = parallelize(1);
+        Assert.assertEquals(1, wrapper.getWidth());
+        Assert.assertTrue(EGRESS.containsAll(wrapper.getAssignedEndpoints()));
+    }
+
+    @Test
+    public void testManyRequests() throws Exception {
+        Wrapper wrapper = parallelize(4);
+        Assert.assertTrue(wrapper.getWidth() >= 2 && wrapper.getWidth() <= 4);
+        Assert.assertTrue(wrapper.getAssignedEndpoints().containsAll(EGRESS));
+        Assert.assertFalse(wrapper.getAssignedEndpoints().contains(OTHER));
+    }
+
+    @Test
+    public void testLookupOnly() {
+        RestStoragePlugin plugin = Mockito.mock(RestStoragePlugin.class);
+        Mockito.when(plugin.getLookupKey()).thenReturn("$__rest_lookup");
+        Mockito.when(plugin.getStatistics()).thenReturn(new RestStatisticsStore(null));
+        List<RestScanSpec> specs = Collections.singletonList(new RestScanSpec("items", null));
+
+        RestGroupScan lookup = new RestGroupScan("user", plugin, specs,
+                Arrays.asList(SchemaPath.getSimplePath("content"), SchemaPath.getSimplePath("$__REST_LOOKUP")), false);
+        Assert.assertTrue(lookup.isLookupOnly());
+
+        RestGroupScan scan = new RestGroupScan("user", plugin, specs,
+                Arrays.asList(SchemaPath.getSimplePath("content"), SchemaPath.getSimplePath("$__rest_param")), false);
+        Assert.assertFalse(scan.isLookupOnly());
+
+        //Скан, который должен был стать lookup join'ом, всегда дороже обычного
+        Assert.assertTrue(lookup.getScanStats().getCpuCost() > 1000 * scan.getScanStats().getCpuCost());
+    }
+
+    /**
+     * Повторяет то, что делают StatsCollector и SimpleParallelizer для фрагмента со сканом
+     */
+    private static Wrapper parallelize(int requests) throws Exception {
+        Wrapper wrapper = new Wrapper(new Fragment(), 0);
+        Stats stats = wrapper.getStats();
+        stats.addMaxWidth(requests);
+        stats.addMinWidth(Math.min(requests, EGRESS.size()));
+        stats.addEndpointAffinities(RestGroupScan.egressAffinities(EGRESS, requests));
+        stats.setDistributionAffinity(DistributionAffinity.HARD);
+        stats.addCost(requests * 1000);
+
+        HardAffinityFragmentParallelizer.INSTANCE.parallelizeFragment(wrapper, new ParallelizationParameters() {
+            @Override
+            public long getSliceTarget() {
+                return 1;
+            }
+
+            @Override
+            public int getMaxWidthPerNode() {
+                return 8;
+            }
+
+            @Override
+            public int getMaxGlobalWidth() {
+                return 1000;
+            }
+
+            @Override
+            public double getAffinityFactor() {
+                return 1.2;
+            }
+        }, CLUSTER);
+        return wrapper;
+    }
+
+    private static DrillbitEndpoint endpoint(String address) {
+        return DrillbitEndpoint.newBuilder().setAddress(address).setUserPort(31010).setControlPort(31011)
+                .setDataPort(31012).build();
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.exec.expr.fn.impl.XXHash;
+import org.apache.drill.exec.memory.BufferAllocator;
+import org.apache.drill.exec.memory.RootAllocator;
+import org.apache.drill.exec.ops.ExecutorFragmentContext;
+import org.apache.drill.exec.proto.BitData;
+import org.apache.drill.exec.work.filter.BloomFilter;
+import org.apache.drill.exec.work.filter.RuntimeFilterWritable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestRuntimeFilterTest {
+
+    private static final String PARAMETERS = "$__rest_param";
+    private static final String MATCHING = "{\"id\":{\"type\":\"value\",\"value\":\"1\"}}";
+    private static final String OTHER = "{\"id\":{\"type\":\"value\",\"value\":\"2\"}}";
+
+    private BufferAllocator allocator;
+    private ExecutorFragmentContext context;
+    private final List<DrillBuf> managed = new ArrayList<>();
+    private RuntimeFilterWritable runtimeFilter;
+
+    @Before
+    public void setUp() {
+        allocator = new RootAllocator(Long.MAX_VALUE);
+        context = Mockito.mock(ExecutorFragmentContext.class);
+        Mockito.when(context.getManagedBuffer(Mockito.anyInt())).thenAnswer(invocation -> {
+            DrillBuf buffer = allocator.buffer((Integer) invocation.getArguments()[0]);
+            managed.add(buffer);
+            return buffer;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        if (runtimeFilter != null) {
+            runtimeFilter.close();
+        }
+        for (DrillBuf buffer : managed) {
+            buffer.release(buffer.refCnt());
+        }
+        allocator.close();
+    }
+
+    @Test
+    public void testProbe() {
+        runtimeFilter = build(Arrays.asList("other", PARAMETERS), Arrays.asList("2", MATCHING));
+        Mockito.when(context.getRuntimeFilter()).thenReturn(runtimeFilter);
+
+        RestRuntimeFilter filter = new RestRuntimeFilter(context, PARAMETERS.toUpperCase());
+        Assert.assertTrue(filter.test(new RestScanSpec("items", MATCHING)));
+        Assert.assertFalse(filter.test(new RestScanSpec("items", OTHER)));
+        Assert.assertTrue(filter.test(new RestScanSpec("items", null)));
+    }
+
+    @Test
+    public void testOtherProbeField() {
+        runtimeFilter = build(Arrays.asList("other"), Arrays.asList(MATCHING));
+        Mockito.when(context.getRuntimeFilter()).thenReturn(runtimeFilter);
+
+        Assert.assertTrue(new RestRuntimeFilter(context, PARAMETERS).test(new RestScanSpec("items", OTHER)));
+    }
+
+    @Test
+    public void testNoFilter() {
+        Assert.assertTrue(new RestRuntimeFilter(context, PARAMETERS).test(new RestScanSpec("items", OTHER)));
+    }
+
+    /**
+     * Как hash join и RuntimeFilterReporter: по фильтру на probe колонку, ключ VARCHAR
+     * хешируется функцией hash64 (XXHash байтов UTF-8 с seed 0)
+     */
+    private RuntimeFilterWritable build(List<String> probeFields, List<String> keys) {
+        DrillBuf[] data = new DrillBuf[probeFields.size()];
+        BitData.RuntimeFilterBDef.Builder definition = BitData.RuntimeFilterBDef.newBuilder()
+                .setMajorFragmentId(1)
+                .setMinorFragmentId(0)
+                .setToForeman(false)
+                .addAllProbeFields(probeFields);
+        for (int i = 0; i < probeFields.size(); i++) {
+            BloomFilter bloomFilter = new BloomFilter(1024, allocator);
+            byte[] key = keys.get(i).getBytes(StandardCharsets.UTF_8);
+            DrillBuf keyBuffer = allocator.buffer(key.length);
+            try {
+                keyBuffer.setBytes(0, key);
+                bloomFilter.insert(XXHash.hash64(0, key.length, keyBuffer, 0));
+            } finally {
+                keyBuffer.release();
+            }
+            data[i] = bloomFilter.getContent();
+            definition.addBloomFilterSizeInBytes(data[i].capacity());
+        }
+        return new RuntimeFilterWritable(definition.build(), data);
+    }
+}
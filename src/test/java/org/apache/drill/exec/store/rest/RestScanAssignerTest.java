@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import org.apache.drill.exec.proto.CoordinationProtos.DrillbitEndpoint;
+import org.apache.drill.shaded.guava.com.google.common.collect.ListMultimap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestScanAssignerTest {
+
+    @Test
+    public void testCostComputedOncePerSpec() {
+        DrillbitEndpoint first = DrillbitEndpoint.newBuilder().setAddress("first").build();
+        DrillbitEndpoint second = DrillbitEndpoint.newBuilder().setAddress("second").build();
+        List<DrillbitEndpoint> endpoints = Arrays.asList(first, first, second, second);
+
+        List<RestScanSpec> specs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            specs.add(new RestScanSpec("items", "{\"id\":{\"type\":\"value\",\"value\":" + i + "}}"));
+        }
+
+        Map<RestScanSpec, Integer> calls = new HashMap<>();
+        ListMultimap<Integer, RestScanSpec> assignments = RestScanAssigner.assign(endpoints, specs, spec -> {
+            calls.merge(spec, 1, Integer::sum);
+            return 1.0 + specs.indexOf(spec) % 3;
+        });
+
+        Assert.assertEquals(specs.size(), calls.size());
+        for (int count : calls.values()) {
+            Assert.assertEquals(1, count);
+        }
+
+        Assert.assertEquals(specs.size(), assignments.size());
+        double[] loads = new double[endpoints.size()];
+        for (Map.Entry<Integer, RestScanSpec> entry : assignments.entries()) {
+            loads[entry.getKey()] += 1.0 + specs.indexOf(entry.getValue()) % 3;
+        }
+        for (double load : loads) {
+            //Самый дорогой запрос стоит 3: разброс между нодами и внутри ноды - не больше него
+            Assert.assertEquals(500.0, load, 6.0);
+        }
+    }
+}
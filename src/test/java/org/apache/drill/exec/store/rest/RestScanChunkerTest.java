@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import org.apache.drill.exec.store.rest.config.FanOutConfig;
+import org.apache.drill.exec.store.rest.config.QueryConfig;
+import org.apache.drill.exec.store.rest.config.RuntimeConfigBuilder;
+import org.apache.drill.exec.store.rest.config.RuntimeQueryConfig;
+import org.apache.drill.exec.store.rest.query.ParameterResolver;
+import org.apache.drill.exec.store.rest.query.ParameterValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestScanChunkerTest {
+
+    private static final String PARAMETERS = "{\"ids\":{\"type\":\"value\",\"value\":[1,2,3,4,5,6,7,8,9,10]}}";
+
+    @Test
+    public void testChunkByValues() throws Exception {
+        List<RestScanSpec> chunks = RestScanChunker.chunk(new RestScanSpec("items", PARAMETERS), config(4, null));
+
+        Assert.assertEquals(3, chunks.size());
+        Assert.assertEquals(4, values(chunks.get(0)).size());
+        Assert.assertEquals(4, values(chunks.get(1)).size());
+        Assert.assertEquals(2, values(chunks.get(2)).size());
+        Assert.assertEquals(10, allValues(chunks).size());
+    }
+
+    @Test
+    public void testChunkByBytes() throws Exception {
+        // http://host/items?ids= - 22 байта, каждое значение с запятой - 2-3 байта
+        List<RestScanSpec> chunks = RestScanChunker.chunk(new RestScanSpec("items", PARAMETERS), config(null, 30));
+
+        Assert.assertTrue(chunks.size() > 1);
+        Assert.assertEquals(10, allValues(chunks).size());
+        for (RestScanSpec chunk : chunks) {
+            Assert.assertTrue(values(chunk).size() <= 4);
+        }
+    }
+
+    @Test
+    public void testNoChunkWhenFits() throws Exception {
+        RestScanSpec spec = new RestScanSpec("items", PARAMETERS);
+        List<RestScanSpec> chunks = RestScanChunker.chunk(spec, config(100, 1000));
+
+        Assert.assertEquals(Collections.singletonList(spec), chunks);
+    }
+
+    private static RuntimeQueryConfig config(Integer maxValues, Integer maxBytes) {
+        QueryConfig query = new QueryConfig("http://host/items?ids={{ids}}", null, null, null, null, null,
+                new FanOutConfig("ids", maxValues, maxBytes), null);
+        return new RuntimeConfigBuilder()
+                .withQuery("items")
+                .withRootConfig(new RestStoragePluginConfig(null, null, Collections.singletonMap("items", query), null))
+                .build();
+    }
+
+    private static Collection<?> values(RestScanSpec spec) throws Exception {
+        ParameterValue value = ParameterResolver.parse(spec.getParameters()).get("ids");
+        return (Collection<?>) value.getValue();
+    }
+
+    private static List<Object> allValues(List<RestScanSpec> specs) throws Exception {
+        List<Object> result = new ArrayList<>();
+        for (RestScanSpec spec : specs) {
+            result.addAll(values(spec));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestScanSpecTest {
+
+    @Test
+    public void testJson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        RestScanSpec spec = new RestScanSpec("items", "{\"id\":{\"type\":\"value\",\"value\":1}}");
+
+        RestScanSpec copy = mapper.readValue(mapper.writeValueAsString(spec), RestScanSpec.class);
+        Assert.assertEquals(spec, copy);
+        Assert.assertEquals(spec.hashCode(), copy.hashCode());
+    }
+
+    @Test
+    public void testEquality() {
+        Assert.assertEquals(3, new HashSet<>(Arrays.asList(
+                new RestScanSpec("items", "a"),
+                new RestScanSpec("items", "a"),
+                new RestScanSpec("items", null),
+                new RestScanSpec("ITEMS", null))).size());
+        Assert.assertNotEquals(new RestScanSpec("items", "a"), new RestScanSpec("items", "b"));
+    }
+
+    @Test
+    public void testLegacySpec() {
+        RestScanSpec legacy = new RestScanSpec("items", "a");
+        List<RestScanSpec> specs = Arrays.asList(new RestScanSpec("items", "b"), new RestScanSpec("items", "c"));
+
+        Assert.assertEquals(Collections.singletonList(legacy), RestScanSpec.listOf(null, legacy));
+        Assert.assertEquals(Collections.singletonList(legacy), RestScanSpec.listOf(Collections.emptyList(), legacy));
+        Assert.assertEquals(specs, RestScanSpec.listOf(specs, null));
+        Assert.assertEquals(specs, RestScanSpec.listOf(specs, legacy));
+        Assert.assertNull(RestScanSpec.listOf(null, null));
+    }
+}
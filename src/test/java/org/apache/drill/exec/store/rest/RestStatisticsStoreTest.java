@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import org.apache.drill.exec.store.sys.PersistentStore;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestStatisticsStoreTest {
+
+    @Test
+    public void testMemoryOnly() {
+        RestStatisticsStore statistics = new RestStatisticsStore(null);
+        Assert.assertNull(statistics.get("items"));
+
+        statistics.record("items", 10, 100, 5);
+        statistics.record("ITEMS", 20, 300, 15);
+
+        QueryStatistics items = statistics.get("Items");
+        Assert.assertEquals(2, items.getRequests());
+        Assert.assertEquals(200, items.getBytes(), 1e-9);
+        Assert.assertNull(statistics.get("other"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPersistent() {
+        PersistentStore<QueryStatistics> store = Mockito.mock(PersistentStore.class);
+        Mockito.when(store.get("stored_items")).thenReturn(QueryStatistics.empty().record(5, 50, 1));
+
+        RestStatisticsStore statistics = new RestStatisticsStore(store, null);
+        Assert.assertEquals(1, statistics.get("stored/items").getRequests());
+
+        //Ридеры пишут только в память
+        statistics.record("stored/items", 5, 50, 1);
+        statistics.record("stored/items", 5, 50, 1);
+        Assert.assertEquals(3, statistics.get("stored/items").getRequests());
+        Mockito.verify(store, Mockito.never()).put(Mockito.anyString(), Mockito.any());
+
+        //Сброс сливает оба замера с тем, что лежит в store
+        statistics.flush();
+        ArgumentCaptor<QueryStatistics> flushed = ArgumentCaptor.forClass(QueryStatistics.class);
+        Mockito.verify(store).put(Mockito.eq("stored_items"), flushed.capture());
+        Assert.assertEquals(3, flushed.getValue().getRequests());
+
+        //Нечего сбрасывать - store не трогаем
+        statistics.flush();
+        Mockito.verify(store, Mockito.times(1)).put(Mockito.anyString(), Mockito.any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMergeWithOtherDrillbit() {
+        PersistentStore<QueryStatistics> store = Mockito.mock(PersistentStore.class);
+        RestStatisticsStore statistics = new RestStatisticsStore(store, null);
+
+        statistics.record("items", 10, 100, 5);
+        //Пока копили замеры, другой drillbit успел записать свои
+        Mockito.when(store.get("items")).thenReturn(QueryStatistics.empty().record(30, 300, 7).record(30, 300, 9));
+        statistics.close();
+
+        ArgumentCaptor<QueryStatistics> flushed = ArgumentCaptor.forClass(QueryStatistics.class);
+        Mockito.verify(store).put(Mockito.eq("items"), flushed.capture());
+        Assert.assertEquals(3, flushed.getValue().getRequests());
+        Assert.assertEquals(70.0 / 3, flushed.getValue().getRows(), 1e-9);
+        Assert.assertEquals(3, statistics.get("items").getRequests());
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class TemplateEntityTest {
+
+    private static final String TEMPLATE = "{\"id\": \"{{id}}\"}";
+
+    @Test
+    public void testBuffered() throws Exception {
+        TemplateEntity entity = new TemplateEntity(TEMPLATE, parameters("1"), StandardCharsets.UTF_8, false);
+
+        Assert.assertFalse(entity.isChunked());
+        Assert.assertEquals("{\"id\": \"1\"}".length(), entity.getContentLength());
+        Assert.assertEquals("{\"id\": \"1\"}", write(entity));
+        Assert.assertEquals("{\"id\": \"1\"}", entity.toString());
+    }
+
+    @Test
+    public void testStreamed() throws Exception {
+        String id = StringUtils.repeat('x', 5000);
+        TemplateEntity entity = new TemplateEntity(TEMPLATE, parameters(id), StandardCharsets.UTF_8, false, 1024);
+
+        Assert.assertTrue(entity.isChunked());
+        Assert.assertEquals(-1, entity.getContentLength());
+        Assert.assertEquals("{\"id\": \"" + id + "\"}", write(entity));
+        Assert.assertEquals("{\"id\": \"" + id.substring(0, 1024 - 8) + "... (truncated)", entity.toString());
+    }
+
+    @Test
+    public void testPreviewBeforeSend() throws Exception {
+        String id = StringUtils.repeat('x', 5000);
+        TemplateEntity entity = new TemplateEntity(TEMPLATE, parameters(id), StandardCharsets.UTF_8, false, 1024);
+
+        //Соединение не удалось - тело не рендерилось, но начало для ошибки все равно есть
+        Assert.assertEquals("{\"id\": \"" + id.substring(0, 1024 - 8) + "... (truncated)", entity.toString());
+    }
+
+    @Test
+    public void testUnderestimated() throws Exception {
+        //Оценка считает параметр один раз, а шаблон повторяет его трижды
+        String id = StringUtils.repeat('x', 400);
+        TemplateEntity entity = new TemplateEntity("{{id}}{{id}}{{id}}", parameters(id), StandardCharsets.UTF_8, false, 1024);
+
+        Assert.assertTrue(entity.isChunked());
+        Assert.assertEquals(id + id + id, write(entity));
+    }
+
+    @Test
+    public void testEstimate() {
+        Map<String, Object> parameters = new HashMap<>();
+        String value = StringUtils.repeat('x', 100);
+        parameters.put("Id", value);
+        parameters.put("id", value);
+        parameters.put("ids", Arrays.asList("a", "b"));
+
+        Assert.assertEquals(TEMPLATE.length() + 100 + 4,
+                TemplateEntity.estimateBytes(TEMPLATE, parameters, StandardCharsets.ISO_8859_1));
+        Assert.assertTrue(TemplateEntity.estimateBytes(TEMPLATE, parameters, StandardCharsets.UTF_8)
+                >= TEMPLATE.length() + 100 + 4);
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        TemplateEntity entity = new TemplateEntity(TEMPLATE, parameters("1"), StandardCharsets.UTF_8, true);
+
+        Assert.assertEquals("gzip", entity.getContentEncoding().getValue());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        entity.writeTo(output);
+        Assert.assertEquals(output.size(), entity.getContentLength());
+        Assert.assertEquals("{\"id\": \"1\"}",
+                IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray())), StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, Object> parameters(String id) {
+        return Collections.singletonMap("id", id);
+    }
+
+    private static String write(TemplateEntity entity) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        entity.writeTo(output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.helpers;
+
+import com.github.jknack.handlebars.EscapingStrategy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class SimpleTemplateTest {
+
+    @Test
+    public void testParse() {
+        Assert.assertNotNull(parse("http://host/items/{{id}}?q={{encodeUrl query}}&raw={{{raw}}}"));
+        Assert.assertNotNull(parse("{{decodeUrl value \"UTF-8\"}}"));
+        Assert.assertNotNull(parse("no parameters"));
+
+        Assert.assertNull(parse("{{#if id}}{{id}}{{/if}}"));
+        Assert.assertNull(parse("{{item.id}}"));
+        Assert.assertNull(parse("{{upper id}}"));
+        Assert.assertNull(parse("\\{{id}}"));
+        Assert.assertNull(parse("{{id"));
+    }
+
+    @Test
+    public void testApply() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", 42);
+        parameters.put("ids", Arrays.asList(1, 2, 3));
+        parameters.put("query", "a b&c");
+        parameters.put("name", "<b>");
+
+        Assert.assertEquals("/items/42?ids=1,2,3&q=a+b%26c&n=&lt;b&gt;&r=<b>",
+                parse("/items/{{id}}?ids={{ids}}&q={{encodeUrl query}}&n={{name}}&r={{{name}}}")
+                        .apply(parameters, EscapingStrategy.HTML_ENTITY));
+    }
+
+    @Test
+    public void testApplyLowerCaseName() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("regionid", "7");
+
+        Assert.assertEquals("7", parse("{{regionId}}").apply(parameters, EscapingStrategy.HTML_ENTITY));
+    }
+
+    @Test
+    public void testFallbackForEmptyValues() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("flag", false);
+        parameters.put("empty", "");
+
+        Assert.assertNull(parse("{{missing}}").apply(parameters, EscapingStrategy.HTML_ENTITY));
+        Assert.assertNull(parse("{{flag}}").apply(parameters, EscapingStrategy.HTML_ENTITY));
+        Assert.assertNull(parse("{{encodeUrl empty}}").apply(parameters, EscapingStrategy.HTML_ENTITY));
+    }
+
+    private static SimpleTemplate parse(String input) {
+        return SimpleTemplate.parse(input, name -> "upper".equals(name));
+    }
+}
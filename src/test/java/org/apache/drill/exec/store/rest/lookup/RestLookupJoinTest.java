@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.lookup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.drill.exec.store.rest.QueryStatistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestLookupJoinTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testSpecJson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        RestLookupSpec spec = new RestLookupSpec("items", "id", "content0", null, true);
+
+        Assert.assertEquals(spec, mapper.readValue(mapper.writeValueAsString(spec), RestLookupSpec.class));
+    }
+
+    @Test
+    public void testCostWithoutStatistics() {
+        //Без статистики запрос стоит как скан с заданными параметрами (TRIVIAL_TABLE)
+        Assert.assertEquals(100 + 10, RestLookupCost.cpuCost(100, 10, null), DELTA);
+        Assert.assertEquals(1 + 1, RestLookupCost.cpuCost(1, 0, null), DELTA);
+    }
+
+    @Test
+    public void testCostWithStatistics() {
+        QueryStatistics statistics = new QueryStatistics(3, 1, 100, Arrays.asList(10L, 50L, 90L));
+        Assert.assertEquals(100 + 10 * 50, RestLookupCost.cpuCost(100, 10, statistics), DELTA);
+
+        //Уникальных ключей меньше - меньше запросов
+        Assert.assertTrue(RestLookupCost.cpuCost(100, 1, statistics) < RestLookupCost.cpuCost(100, 100, statistics));
+    }
+}
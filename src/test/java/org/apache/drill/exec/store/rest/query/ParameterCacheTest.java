@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.query;
+
+import org.apache.drill.shaded.guava.com.google.common.base.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class ParameterCacheTest {
+
+    private static final String SQL = "select id from dfs.tmp.ids";
+
+    @Test
+    public void testTtl() {
+        AtomicLong now = new AtomicLong();
+        ParameterCache cache = new ParameterCache(60, 1024 * 1024, new Ticker() {
+            @Override
+            public long read() {
+                return now.get();
+            }
+        });
+
+        cache.put("user", ParameterValue.Type.QUERY, SQL, Arrays.asList(1, 2));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        Assert.assertEquals(Arrays.asList(1, 2), cache.get("user", ParameterValue.Type.QUERY, SQL));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assert.assertNull(cache.get("user", ParameterValue.Type.QUERY, SQL));
+    }
+
+    @Test
+    public void testKey() {
+        ParameterCache cache = new ParameterCache(60, 1024 * 1024);
+        cache.put("alice", ParameterValue.Type.QUERY, SQL, Collections.singletonList(1));
+        cache.put("bob", ParameterValue.Type.QUERY, SQL, Collections.singletonList(2));
+
+        Assert.assertEquals(Collections.singletonList(1), cache.get("alice", ParameterValue.Type.QUERY, SQL));
+        Assert.assertEquals(Collections.singletonList(2), cache.get("bob", ParameterValue.Type.QUERY, SQL));
+        Assert.assertNull(cache.get("carol", ParameterValue.Type.QUERY, SQL));
+        Assert.assertNull(cache.get("alice", ParameterValue.Type.SUBQUERY, SQL));
+    }
+
+    @Test
+    public void testWeight() {
+        Assert.assertTrue(ParameterCache.estimateBytes(Collections.nCopies(1000, "value"))
+                > ParameterCache.estimateBytes(Collections.nCopies(10, "value")));
+        Assert.assertTrue(ParameterCache.estimateBytes(new String(new char[10_000]))
+                > ParameterCache.estimateBytes(Collections.singletonMap("id", Arrays.asList(1L, 2L, 3L))));
+
+        //Значение больше лимита в кеше не задерживается
+        ParameterCache cache = new ParameterCache(60, 1024);
+        cache.put("user", ParameterValue.Type.QUERY, SQL, Collections.nCopies(1000, "value"));
+        Assert.assertNull(cache.get("user", ParameterValue.Type.QUERY, SQL));
+    }
+}
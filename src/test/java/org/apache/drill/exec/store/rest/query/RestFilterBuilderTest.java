@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.query;
+
+import org.apache.drill.common.expression.BooleanOperator;
+import org.apache.drill.common.expression.ExpressionPosition;
+import org.apache.drill.common.expression.FunctionCall;
+import org.apache.drill.common.expression.LogicalExpression;
+import org.apache.drill.common.expression.SchemaPath;
+import org.apache.drill.common.expression.ValueExpressions;
+import org.apache.drill.exec.store.rest.RestScanSpec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestFilterBuilderTest {
+
+    private static final String PARAMETERS = "$__rest_param";
+
+    @Test
+    public void testSingleValue() {
+        Assert.assertEquals(Arrays.asList(spec("a")), parse(equal(PARAMETERS, "a")));
+    }
+
+    @Test
+    public void testOrSplitsIntoSpecs() {
+        List<RestScanSpec> specs = parse(or(equal(PARAMETERS, "a"), equal(PARAMETERS, "b"), equal(PARAMETERS, "a"), equal(PARAMETERS, "c")));
+        Assert.assertEquals(Arrays.asList(spec("a"), spec("b"), spec("c")), specs);
+    }
+
+    @Test
+    public void testNestedOr() {
+        List<RestScanSpec> specs = parse(or(equal(PARAMETERS, "a"),
+                and(equal("other", "x"), or(equal(PARAMETERS, "b"), equal(PARAMETERS, "c")))));
+        Assert.assertEquals(Arrays.asList(spec("a"), spec("b"), spec("c")), specs);
+    }
+
+    @Test
+    public void testOrWithBranchNotPushedDown() {
+        Assert.assertNull(parse(or(equal(PARAMETERS, "a"), equal("other", "b"))));
+        Assert.assertNull(parse(or(equal(PARAMETERS, "a"), new FunctionCall("like",
+                Arrays.asList(SchemaPath.getSimplePath(PARAMETERS), ValueExpressions.getChar("b%", 2)), ExpressionPosition.UNKNOWN))));
+    }
+
+    @Test
+    public void testAndUsesPushedDownBranch() {
+        Assert.assertEquals(Arrays.asList(spec("a")), parse(and(equal("other", "b"), equal(PARAMETERS, "a"))));
+        Assert.assertEquals(Arrays.asList(spec("a"), spec("b")),
+                parse(and(equal("other", "x"), or(equal(PARAMETERS, "a"), equal(PARAMETERS, "b")))));
+    }
+
+    private static List<RestScanSpec> parse(LogicalExpression expression) {
+        return new RestFilterBuilder("items", PARAMETERS, expression).parseTree();
+    }
+
+    private static RestScanSpec spec(String parameters) {
+        return new RestScanSpec("items", parameters);
+    }
+
+    private static LogicalExpression equal(String column, String value) {
+        return new FunctionCall("equal",
+                Arrays.asList(SchemaPath.getSimplePath(column), ValueExpressions.getChar(value, value.length())),
+                ExpressionPosition.UNKNOWN);
+    }
+
+    private static LogicalExpression or(LogicalExpression... args) {
+        return new BooleanOperator("booleanOr", Arrays.asList(args), ExpressionPosition.UNKNOWN);
+    }
+
+    private static LogicalExpression and(LogicalExpression... args) {
+        return new BooleanOperator("booleanAnd", Arrays.asList(args), ExpressionPosition.UNKNOWN);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class AvroNodeSourceTest {
+
+    private static final String SCHEMA = "{\"type\": \"record\", \"name\": \"Item\", \"fields\": ["
+            + "{\"name\": \"id\", \"type\": \"long\"},"
+            + "{\"name\": \"name\", \"type\": [\"null\", \"string\"]},"
+            + "{\"name\": \"value\", \"type\": [\"null\", \"double\", {\"type\": \"array\", \"items\": \"int\"}]},"
+            + "{\"name\": \"data\", \"type\": \"bytes\"},"
+            + "{\"name\": \"attrs\", \"type\": {\"type\": \"map\", \"values\": \"string\"}},"
+            + "{\"name\": \"kind\", \"type\": {\"type\": \"enum\", \"name\": \"Kind\", \"symbols\": [\"SMALL\", \"BIG\"]}},"
+            + "{\"name\": \"hash\", \"type\": {\"type\": \"fixed\", \"name\": \"Hash\", \"size\": 2}}"
+            + "]}";
+
+    private static final String EXPECTED = "[{\"id\":1,\"name\":\"a\",\"value\":1.5,\"data\":\"AQI=\",\"attrs\":{\"k\":\"v\"},\"kind\":\"BIG\",\"hash\":\"AwQ=\"}, "
+            + "{\"id\":2,\"name\":null,\"value\":[1,2],\"data\":\"\",\"attrs\":{},\"kind\":\"SMALL\",\"hash\":\"AAA=\"}]";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testContainerFile() throws Exception {
+        Schema schema = AvroNodeSource.parseSchema(SCHEMA);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema))) {
+            writer.create(schema, output);
+            for (GenericRecord record : records(schema)) {
+                writer.append(record);
+            }
+        }
+
+        Assert.assertEquals(EXPECTED, read(new AvroNodeSource(new ByteArrayInputStream(output.toByteArray()), null)));
+    }
+
+    @Test
+    public void testBinaryWithSchema() throws Exception {
+        File schemaFile = folder.newFile("item.avsc");
+        Files.write(schemaFile.toPath(), SCHEMA.getBytes(StandardCharsets.UTF_8));
+        Schema schema = AvroNodeSource.parseSchema(schemaFile.getPath());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(schema);
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(output, null);
+        for (GenericRecord record : records(schema)) {
+            writer.write(record, encoder);
+        }
+        encoder.flush();
+
+        Assert.assertEquals(EXPECTED, read(new AvroNodeSource(new ByteArrayInputStream(output.toByteArray()), schema)));
+    }
+
+    @Test
+    public void testParseSchema() throws Exception {
+        Assert.assertNull(AvroNodeSource.parseSchema(null));
+        Assert.assertNull(AvroNodeSource.parseSchema(" "));
+        Assert.assertEquals(Schema.Type.STRING, AvroNodeSource.parseSchema("\"string\"").getType());
+    }
+
+    private static List<GenericRecord> records(Schema schema) {
+        Schema kind = schema.getField("kind").schema();
+        Schema hash = schema.getField("hash").schema();
+        return Arrays.asList(
+                new GenericRecordBuilder(schema)
+                        .set("id", 1L)
+                        .set("name", "a")
+                        .set("value", 1.5)
+                        .set("data", ByteBuffer.wrap(new byte[]{1, 2}))
+                        .set("attrs", Collections.singletonMap("k", "v"))
+                        .set("kind", new GenericData.EnumSymbol(kind, "BIG"))
+                        .set("hash", new GenericData.Fixed(hash, new byte[]{3, 4}))
+                        .build(),
+                new GenericRecordBuilder(schema)
+                        .set("id", 2L)
+                        .set("name", null)
+                        .set("value", Arrays.asList(1, 2))
+                        .set("data", ByteBuffer.wrap(new byte[0]))
+                        .set("attrs", Collections.emptyMap())
+                        .set("kind", new GenericData.EnumSymbol(kind, "SMALL"))
+                        .set("hash", new GenericData.Fixed(hash, new byte[]{0, 0}))
+                        .build());
+    }
+
+    private static String read(NodeRecordParser.Source source) throws Exception {
+        List<JsonNode> records = new ArrayList<>();
+        for (JsonNode record = source.next(); record != null; record = source.next()) {
+            records.add(record);
+        }
+        return records.toString();
+    }
+}
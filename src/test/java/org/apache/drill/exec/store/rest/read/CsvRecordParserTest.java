@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import org.apache.drill.exec.vector.complex.impl.VectorContainerWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class CsvRecordParserTest {
+
+    @Test
+    public void testHeader() throws Exception {
+        try (TestOutput output = new TestOutput()) {
+            //Повтор и пустое имя переименовываются, лишнее поле отбрасывается
+            Assert.assertEquals(2, parse(output, "id,ID,\n1,2,3,4\n5\n", true));
+            Assert.assertEquals(Arrays.asList("1", "5"), output.values("id", 2));
+            Assert.assertEquals(Arrays.asList("2", null), output.values("ID_1", 2));
+            Assert.assertEquals(Arrays.asList("3", null), output.values("column_2", 2));
+            Assert.assertEquals(3, output.getVectors().size());
+        }
+    }
+
+    @Test
+    public void testWithoutHeader() throws Exception {
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(2, parse(output, "id,name\n1,a\n", false));
+            Assert.assertEquals("[\"id\",\"name\"]", String.valueOf(output.values(CsvRecordParser.COLUMNS, 2).get(0)));
+            Assert.assertEquals("[\"1\",\"a\"]", String.valueOf(output.values(CsvRecordParser.COLUMNS, 2).get(1)));
+        }
+    }
+
+    private static int parse(TestOutput output, String csv, boolean header) throws IOException {
+        CsvRecordParser recordParser = new CsvRecordParser(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8,
+                ',',
+                '"',
+                header,
+                new VarCharBuffer(output.getManagedBuffer()));
+        VectorContainerWriter writer = new VectorContainerWriter(output);
+        writer.allocate();
+        writer.reset();
+
+        int count = 0;
+        writer.setPosition(count);
+        while (recordParser.write(writer)) {
+            writer.setPosition(++count);
+        }
+        recordParser.ensureColumns(writer);
+        writer.setValueCount(count);
+        return count;
+    }
+}
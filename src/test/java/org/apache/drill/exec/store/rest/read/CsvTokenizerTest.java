@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class CsvTokenizerTest {
+
+    @Test
+    public void testQuoted() throws Exception {
+        List<List<String>> rows = parse("\uFEFFid,name,comment\r\n"
+                + "1,\"Smith, John\",\"said \"\"hi\"\"\"\r\n"
+                + "2,,\"multi\nline\"\r\n"
+                + "\r\n", ',');
+
+        Assert.assertEquals(Arrays.asList(
+                Arrays.asList("id", "name", "comment"),
+                Arrays.asList("1", "Smith, John", "said \"hi\""),
+                Arrays.asList("2", "", "multi\nline")), rows);
+    }
+
+    @Test
+    public void testTabs() throws Exception {
+        Assert.assertEquals(Arrays.asList(
+                Arrays.asList("a", "b,c", ""),
+                Arrays.asList("d")), parse("a\tb,c\t\nd", '\t'));
+    }
+
+    @Test
+    public void testColumnNames() {
+        Assert.assertEquals(Arrays.asList("id", "ID_1", "column_2", "name"),
+                CsvRecordParser.columnNames(Arrays.asList(" id", "ID", "", "name")));
+    }
+
+    private static List<List<String>> parse(String csv, char delimiter) throws Exception {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv), delimiter, '"');
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row;
+        while ((row = tokenizer.next()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import org.apache.drill.exec.vector.complex.impl.VectorContainerWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class HtmlTableRecordParserTest {
+
+    @Test
+    public void testHeaderDetection() throws Exception {
+        String html = "<table><tr><th>id</th><th>name</th></tr><tr><td>1</td><td>a</td></tr><tr><td>2</td><td>b</td></tr></table>";
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(2, parse(output, html, null, null));
+            Assert.assertEquals(Arrays.asList("1", "2"), output.values("id", 2));
+            Assert.assertEquals(Arrays.asList("a", "b"), output.values("name", 2));
+        }
+        try (TestOutput output = new TestOutput()) {
+            //Заголовок выключен явно - строка из th становится данными
+            Assert.assertEquals(3, parse(output, html, null, false));
+            Assert.assertEquals("[\"id\",\"name\"]", String.valueOf(output.values(CsvRecordParser.COLUMNS, 3).get(0)));
+        }
+    }
+
+    @Test
+    public void testWithoutHeader() throws Exception {
+        String html = "<table><tr><td>id</td><td>name</td></tr><tr><td>1</td><td>a</td></tr></table>";
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(2, parse(output, html, null, null));
+            Assert.assertEquals(Arrays.asList("[\"id\",\"name\"]", "[\"1\",\"a\"]"),
+                    Arrays.asList(String.valueOf(output.values(CsvRecordParser.COLUMNS, 2).get(0)),
+                            String.valueOf(output.values(CsvRecordParser.COLUMNS, 2).get(1))));
+        }
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(1, parse(output, html, null, true));
+            Assert.assertEquals(Arrays.asList("1"), output.values("id", 1));
+        }
+    }
+
+    @Test
+    public void testColspan() throws Exception {
+        String html = "<table><thead><tr><th>a</th><th>b</th><th>c</th></tr></thead>"
+                + "<tbody><tr><td colspan=\"2\">x</td><td>y</td></tr></tbody></table>";
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(1, parse(output, html, null, null));
+            Assert.assertEquals(Arrays.asList("x"), output.values("a", 1));
+            Assert.assertEquals(Arrays.asList("x"), output.values("b", 1));
+            Assert.assertEquals(Arrays.asList("y"), output.values("c", 1));
+        }
+    }
+
+    @Test
+    public void testNestedTable() throws Exception {
+        String html = "<table id=\"outer\"><tr><th>id</th><th>detail</th></tr>"
+                + "<tr><td>1</td><td><table><tr><td>inner</td></tr><tr><td>rows</td></tr></table></td></tr>"
+                + "</table>";
+        try (TestOutput output = new TestOutput()) {
+            //Строки вложенной таблицы не становятся записями, ее текст остается в ячейке
+            Assert.assertEquals(1, parse(output, html, "#outer", null));
+            Assert.assertEquals(Arrays.asList("1"), output.values("id", 1));
+            Assert.assertEquals(Arrays.asList("inner rows"), output.values("detail", 1));
+        }
+    }
+
+    @Test
+    public void testColumnNames() throws Exception {
+        String html = "<table><tr><th>id</th><th>ID</th><th></th></tr><tr><td>1</td><td>2</td><td>3</td></tr></table>";
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(1, parse(output, html, null, null));
+            Assert.assertEquals(Arrays.asList("1"), output.values("id", 1));
+            Assert.assertEquals(Arrays.asList("2"), output.values("ID_1", 1));
+            Assert.assertEquals(Arrays.asList("3"), output.values("column_2", 1));
+        }
+    }
+
+    @Test
+    public void testMissingTable() throws Exception {
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(0, parse(output, "<p>no data</p>", null, null));
+        }
+    }
+
+    private static int parse(TestOutput output, String html, String selector, Boolean header) throws IOException {
+        HtmlTableRecordParser recordParser = new HtmlTableRecordParser(new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8,
+                selector,
+                header,
+                new VarCharBuffer(output.getManagedBuffer()));
+        VectorContainerWriter writer = new VectorContainerWriter(output);
+        writer.allocate();
+        writer.reset();
+
+        int count = 0;
+        writer.setPosition(count);
+        while (recordParser.write(writer)) {
+            writer.setPosition(++count);
+        }
+        recordParser.ensureColumns(writer);
+        writer.setValueCount(count);
+        return count;
+    }
+}
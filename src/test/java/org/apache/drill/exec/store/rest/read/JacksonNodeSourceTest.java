@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.apache.drill.exec.store.rest.config.ResponseFormat;
+import org.junit.Assert;
+import org.junit.Test;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class JacksonNodeSourceTest {
+
+    @Test
+    public void testRootArray() throws Exception {
+        Assert.assertEquals("[{\"id\":1}, {\"id\":2}]",
+                read("{\"total\": 2, \"data\": {\"items\": [{\"id\": 1}, {\"id\": 2}]}}", "$.data.items"));
+        Assert.assertEquals("[]", read("{\"data\": {\"items\": []}}", "$.data.items"));
+        Assert.assertEquals("[]", read("{\"data\": {}}", "$.data.items"));
+        Assert.assertEquals("[{\"id\":1}]", read("{\"data\": {\"id\": 1}}", "/data"));
+    }
+
+    @Test
+    public void testTopLevelSequence() throws Exception {
+        Assert.assertEquals("[{\"id\":1}, {\"id\":2}, {\"id\":3}]", read("{\"id\": 1} [{\"id\": 2}] [] {\"id\": 3}", null));
+        Assert.assertEquals("[]", read("", null));
+    }
+
+    @Test
+    public void testCbor() throws Exception {
+        testRoundTrip(ResponseFormat.CBOR, new CBORFactory());
+    }
+
+    @Test
+    public void testSmile() throws Exception {
+        testRoundTrip(ResponseFormat.SMILE, new SmileFactory());
+    }
+
+    @Test
+    public void testMsgpack() throws Exception {
+        testRoundTrip(ResponseFormat.MSGPACK, new MessagePackFactory());
+    }
+
+    @Test
+    public void testCborSequence() throws Exception {
+        ObjectMapper mapper = new ObjectMapper(new CBORFactory());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(mapper.writeValueAsBytes(Collections.singletonMap("id", 1)));
+        output.write(mapper.writeValueAsBytes(Collections.singletonMap("id", 2)));
+
+        Assert.assertEquals("[{\"id\":1}, {\"id\":2}]", read(ResponseFormat.CBOR, output.toByteArray(), null));
+    }
+
+    /**
+     * Бинарные значения становятся строками base64, как при сериализации в json
+     */
+    private static void testRoundTrip(ResponseFormat format, JsonFactory factory) throws Exception {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("id", 1);
+        first.put("name", "a");
+        first.put("data", new byte[]{1, 2});
+        first.put("tags", Arrays.asList(1, 2));
+        first.put("nested", Collections.singletonMap("ok", true));
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("id", 2);
+        second.put("name", null);
+        second.put("score", 1.5);
+
+        byte[] document = new ObjectMapper(factory).writeValueAsBytes(
+                Collections.singletonMap("data", Collections.singletonMap("items", Arrays.asList(first, second))));
+
+        Assert.assertEquals("[{\"id\":1,\"name\":\"a\",\"data\":\"AQI=\",\"tags\":[1,2],\"nested\":{\"ok\":true}}, "
+                        + "{\"id\":2,\"name\":null,\"score\":1.5}]",
+                read(format, document, "$.data.items"));
+    }
+
+    private static String read(ResponseFormat format, byte[] document, String root) throws Exception {
+        return read(JacksonNodeSource.factory(format).createParser(document), root);
+    }
+
+    private static String read(String document, String root) throws Exception {
+        return read(JacksonNodeSource.factory(ResponseFormat.JSON).createParser(document), root);
+    }
+
+    private static String read(JsonParser parser, String root) throws Exception {
+        JacksonNodeSource source = new JacksonNodeSource(parser, JsonRoot.compile(root));
+        List<JsonNode> records = new ArrayList<>();
+        for (JsonNode record = source.next(); record != null; record = source.next()) {
+            records.add(record);
+        }
+        return records.toString();
+    }
+}
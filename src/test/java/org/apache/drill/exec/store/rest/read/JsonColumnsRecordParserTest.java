@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import com.fasterxml.jackson.core.JsonParser;
+import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.common.types.TypeProtos.MinorType;
+import org.apache.drill.exec.store.rest.config.ColumnConfig;
+import org.apache.drill.exec.vector.complex.impl.VectorContainerWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class JsonColumnsRecordParserTest {
+
+    private static final long DAY = 1580428800000L;
+    private static final long TIME = 1580464800000L;
+
+    @Test
+    public void testParseDate() {
+        Assert.assertEquals(DAY, JsonColumnsRecordParser.parseDate("2020-01-31"));
+        Assert.assertEquals(DAY, JsonColumnsRecordParser.parseDate("2020-01-31T23:00:00+03:00"));
+    }
+
+    @Test
+    public void testParseTimestamp() {
+        Assert.assertEquals(TIME, JsonColumnsRecordParser.parseTimestamp("2020-01-31T10:00:00Z"));
+        Assert.assertEquals(TIME, JsonColumnsRecordParser.parseTimestamp("2020-01-31T13:00:00+03:00"));
+        Assert.assertEquals(TIME, JsonColumnsRecordParser.parseTimestamp("2020-01-31 10:00:00"));
+        Assert.assertEquals(TIME + 500, JsonColumnsRecordParser.parseTimestamp("2020-01-31T10:00:00.5"));
+        Assert.assertEquals(DAY, JsonColumnsRecordParser.parseTimestamp("2020-01-31"));
+    }
+
+    @Test
+    public void testColumns() throws Exception {
+        String document = "{\"items\": ["
+                + "{\"id\": 1, \"user\": {\"skip\": {\"deep\": [1, {\"x\": 3}]}, \"name\": \"a\"}, \"tags\": [\"t0\", \"t1\"],"
+                + " \"obj\": {\"a\": [1, 2]}, \"flag\": true},"
+                + "{\"id\": \"2\", \"extra\": [[1]], \"tags\": [], \"obj\": null, \"flag\": \"false\"}"
+                + "], \"total\": 2}";
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(2, parse(output, document, "$.items",
+                    new ColumnConfig("id", "/id", "bigint"),
+                    new ColumnConfig("name", "$.user.name", null),
+                    new ColumnConfig("first_tag", "/tags/0", null),
+                    new ColumnConfig("obj", "/obj", null),
+                    new ColumnConfig("flag", "/flag", "bit")));
+
+            Assert.assertEquals(Arrays.asList(1L, 2L), output.values("id", 2));
+            Assert.assertEquals(Arrays.asList("a", null), output.values("name", 2));
+            Assert.assertEquals(Arrays.asList("t0", null), output.values("first_tag", 2));
+            Assert.assertEquals(Arrays.asList("{\"a\":[1,2]}", null), output.values("obj", 2));
+            Assert.assertEquals(Arrays.asList(true, false), output.values("flag", 2));
+            Assert.assertEquals(5, output.getVectors().size());
+        }
+    }
+
+    @Test
+    public void testFieldOrIndex() throws Exception {
+        //"/0" - и нулевой элемент массива, и поле с именем "0"
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(3, parse(output, "{\"a\": [\"x\", \"y\"]} {\"a\": {\"1\": \"w\", \"0\": \"z\"}} {\"b\": 1}", null,
+                    new ColumnConfig("a0", "/a/0", null)));
+            Assert.assertEquals(Arrays.asList("x", "z", null), output.values("a0", 3));
+        }
+    }
+
+    @Test
+    public void testPrefixColumns() throws Exception {
+        //Путь одной колонки - начало пути другой
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(3, parse(output, "{\"user\": {\"id\": 1, \"name\": \"a\"}} {\"user\": \"b\"} {\"user\": {\"name\": \"c\"}}", null,
+                    new ColumnConfig("user", "/user", null),
+                    new ColumnConfig("user_id", "/user/id", "int")));
+            Assert.assertEquals(Arrays.asList("{\"id\":1,\"name\":\"a\"}", "b", "{\"name\":\"c\"}"), output.values("user", 3));
+            Assert.assertEquals(Arrays.asList(1, null, null), output.values("user_id", 3));
+        }
+    }
+
+    @Test
+    public void testEnsureColumns() throws Exception {
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(0, parse(output, "{\"items\": []}", "$.items",
+                    new ColumnConfig("id", "/id", "int"),
+                    new ColumnConfig("day", "/day", "date"),
+                    new ColumnConfig("at", "/at", "timestamp"),
+                    new ColumnConfig("name", "/name", null)));
+
+            Assert.assertEquals(Arrays.asList("id", "day", "at", "name"), Arrays.asList(output.getVectors().keySet().toArray()));
+            Assert.assertEquals(MinorType.INT, output.getVectors().get("id").getField().getType().getMinorType());
+            Assert.assertEquals(MinorType.DATE, output.getVectors().get("day").getField().getType().getMinorType());
+            Assert.assertEquals(MinorType.TIMESTAMP, output.getVectors().get("at").getField().getType().getMinorType());
+            Assert.assertEquals(MinorType.VARCHAR, output.getVectors().get("name").getField().getType().getMinorType());
+        }
+    }
+
+    @Test(expected = UserException.class)
+    public void testConversionError() throws Exception {
+        try (TestOutput output = new TestOutput()) {
+            parse(output, "{\"id\": \"abc\"}", null, new ColumnConfig("id", "/id", "int"));
+        }
+    }
+
+    private static int parse(TestOutput output, String document, String root, ColumnConfig... columns) throws IOException {
+        JsonParser parser = RestRecordReader.MAPPER.getFactory().createParser(document);
+        JsonColumnsRecordParser recordParser = new JsonColumnsRecordParser(parser,
+                root == null ? null : JsonRoot.compile(root),
+                Arrays.asList(columns),
+                new VarCharBuffer(output.getManagedBuffer()));
+        VectorContainerWriter writer = new VectorContainerWriter(output);
+        writer.allocate();
+        writer.reset();
+
+        int count = 0;
+        writer.setPosition(count);
+        while (recordParser.write(writer)) {
+            writer.setPosition(++count);
+        }
+        recordParser.ensureColumns(writer);
+        writer.setValueCount(count);
+        return count;
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class JsonRootTest {
+
+    private static final String DOCUMENT = "{\"meta\": {\"items\": [0]}, \"data\": {\"total\": 2, \"items\": [{\"id\": 1}, {\"id\": 2}]}}";
+
+    @Test
+    public void testCompile() {
+        Assert.assertEquals("", JsonRoot.compile(null).toString());
+        Assert.assertEquals("", JsonRoot.compile("$").toString());
+        Assert.assertEquals("/data/items", JsonRoot.compile("/data/items").toString());
+        Assert.assertEquals("/data/items", JsonRoot.compile("$.data.items[*]").toString());
+        Assert.assertEquals("/data/items/0/a~1b", JsonRoot.compile("$['data'].items[0][\"a/b\"]").toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompileDeepScan() {
+        JsonRoot.compile("$..items");
+    }
+
+    @Test
+    public void testMoveTo() throws Exception {
+        JsonParser parser = parser(DOCUMENT);
+        Assert.assertTrue(JsonRoot.moveTo(parser, JsonRoot.compile("$.data.items")));
+        Assert.assertEquals(JsonToken.START_ARRAY, parser.getCurrentToken());
+        Assert.assertEquals(DOCUMENT.indexOf("[{"), parser.getTokenLocation().getByteOffset());
+
+        parser = parser(DOCUMENT);
+        Assert.assertTrue(JsonRoot.moveTo(parser, JsonPointer.compile("/data/items/1")));
+        Assert.assertEquals(JsonToken.START_OBJECT, parser.getCurrentToken());
+        Assert.assertEquals(DOCUMENT.indexOf("{\"id\": 2"), parser.getTokenLocation().getByteOffset());
+
+        Assert.assertFalse(JsonRoot.moveTo(parser(DOCUMENT), JsonPointer.compile("/data/missing")));
+        Assert.assertFalse(JsonRoot.moveTo(parser(DOCUMENT), JsonPointer.compile("/data/items/5")));
+        Assert.assertFalse(JsonRoot.moveTo(parser(DOCUMENT), JsonPointer.compile("/data/total/x")));
+    }
+
+    private static JsonParser parser(String json) throws Exception {
+        return new JsonFactory().createParser(json.getBytes("UTF-8"));
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumValueDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class ProtobufNodeSourceTest {
+
+    /**
+     * common.proto: package test.common; message Tag { string name = 1; }
+     */
+    private static final FileDescriptorProto COMMON = FileDescriptorProto.newBuilder()
+            .setName("common.proto")
+            .setPackage("test.common")
+            .addMessageType(DescriptorProto.newBuilder()
+                    .setName("Tag")
+                    .addField(field("name", 1, FieldDescriptorProto.Type.TYPE_STRING, null, false)))
+            .build();
+
+    /**
+     * item.proto (proto3): package test; import "common.proto";
+     * message Item { int64 id = 1; string name = 2; repeated test.common.Tag tags = 3; bytes data = 4;
+     * Part part = 5; Kind kind = 6; repeated int32 sizes = 7;
+     * message Part { int32 n = 1; } enum Kind { SMALL = 0; BIG = 1; } }
+     */
+    private static final FileDescriptorProto ITEM = FileDescriptorProto.newBuilder()
+            .setName("item.proto")
+            .setPackage("test")
+            .setSyntax("proto3")
+            .addDependency("common.proto")
+            .addMessageType(DescriptorProto.newBuilder()
+                    .setName("Item")
+                    .addField(field("id", 1, FieldDescriptorProto.Type.TYPE_INT64, null, false))
+                    .addField(field("name", 2, FieldDescriptorProto.Type.TYPE_STRING, null, false))
+                    .addField(field("tags", 3, FieldDescriptorProto.Type.TYPE_MESSAGE, ".test.common.Tag", true))
+                    .addField(field("data", 4, FieldDescriptorProto.Type.TYPE_BYTES, null, false))
+                    .addField(field("part", 5, FieldDescriptorProto.Type.TYPE_MESSAGE, ".test.Item.Part", false))
+                    .addField(field("kind", 6, FieldDescriptorProto.Type.TYPE_ENUM, ".test.Item.Kind", false))
+                    .addField(field("sizes", 7, FieldDescriptorProto.Type.TYPE_INT32, null, true))
+                    .addNestedType(DescriptorProto.newBuilder()
+                            .setName("Part")
+                            .addField(field("n", 1, FieldDescriptorProto.Type.TYPE_INT32, null, false)))
+                    .addEnumType(EnumDescriptorProto.newBuilder()
+                            .setName("Kind")
+                            .addValue(EnumValueDescriptorProto.newBuilder().setName("SMALL").setNumber(0))
+                            .addValue(EnumValueDescriptorProto.newBuilder().setName("BIG").setNumber(1))))
+            .build();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLoadDescriptor() throws Exception {
+        //Зависимость лежит в наборе после файла, который ее импортирует
+        String descriptorSet = write(ITEM, COMMON);
+
+        Descriptors.Descriptor item = ProtobufNodeSource.loadDescriptor(descriptorSet, "test.Item");
+        Assert.assertEquals("test.Item", item.getFullName());
+        Assert.assertEquals("test.common.Tag", item.findFieldByName("tags").getMessageType().getFullName());
+
+        Assert.assertEquals("test.Item.Part", ProtobufNodeSource.loadDescriptor(descriptorSet, "test.Item.Part").getFullName());
+        Assert.assertEquals("test.common.Tag", ProtobufNodeSource.loadDescriptor(descriptorSet, "test.common.Tag").getFullName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownMessage() throws Exception {
+        ProtobufNodeSource.loadDescriptor(write(ITEM, COMMON), "test.Missing");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingDependency() throws Exception {
+        ProtobufNodeSource.loadDescriptor(write(ITEM), "test.Item");
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Descriptors.Descriptor item = ProtobufNodeSource.loadDescriptor(write(ITEM, COMMON), "test.Item");
+        Descriptors.Descriptor tag = item.findFieldByName("tags").getMessageType();
+        Descriptors.Descriptor part = item.findFieldByName("part").getMessageType();
+
+        DynamicMessage first = DynamicMessage.newBuilder(item)
+                .setField(item.findFieldByName("id"), 1L)
+                .setField(item.findFieldByName("name"), "a")
+                .addRepeatedField(item.findFieldByName("tags"), DynamicMessage.newBuilder(tag)
+                        .setField(tag.findFieldByName("name"), "t1").build())
+                .addRepeatedField(item.findFieldByName("tags"), DynamicMessage.newBuilder(tag)
+                        .setField(tag.findFieldByName("name"), "t2").build())
+                .setField(item.findFieldByName("data"), ByteString.copyFrom(new byte[]{1, 2}))
+                .setField(item.findFieldByName("part"), DynamicMessage.newBuilder(part)
+                        .setField(part.findFieldByName("n"), 3).build())
+                .setField(item.findFieldByName("kind"), item.findEnumTypeByName("Kind").findValueByName("BIG"))
+                .addRepeatedField(item.findFieldByName("sizes"), 4)
+                .build();
+        DynamicMessage second = DynamicMessage.newBuilder(item)
+                .setField(item.findFieldByName("id"), 2L)
+                .build();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        first.writeDelimitedTo(output);
+        second.writeDelimitedTo(output);
+
+        ProtobufNodeSource source = new ProtobufNodeSource(new ByteArrayInputStream(output.toByteArray()), item);
+        List<JsonNode> records = new ArrayList<>();
+        for (JsonNode record = source.next(); record != null; record = source.next()) {
+            records.add(record);
+        }
+        Assert.assertEquals("[{\"id\":1,\"name\":\"a\",\"tags\":[{\"name\":\"t1\"},{\"name\":\"t2\"}],\"data\":\"AQI=\","
+                + "\"part\":{\"n\":3},\"kind\":\"BIG\",\"sizes\":[4]}, {\"id\":2}]", records.toString());
+    }
+
+    private static FieldDescriptorProto.Builder field(String name, int number, FieldDescriptorProto.Type type,
+                                                      String typeName, boolean repeated) {
+        FieldDescriptorProto.Builder field = FieldDescriptorProto.newBuilder()
+                .setName(name)
+                .setNumber(number)
+                .setType(type)
+                .setLabel(repeated ? FieldDescriptorProto.Label.LABEL_REPEATED : FieldDescriptorProto.Label.LABEL_OPTIONAL);
+        if (typeName != null) {
+            field.setTypeName(typeName);
+        }
+        return field;
+    }
+
+    private String write(FileDescriptorProto... files) throws Exception {
+        FileDescriptorSet.Builder set = FileDescriptorSet.newBuilder();
+        for (FileDescriptorProto file : files) {
+            set.addFile(file);
+        }
+        File file = folder.newFile();
+        try (OutputStream output = new FileOutputStream(file)) {
+            set.build().writeTo(output);
+        }
+        return file.getPath();
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import com.fasterxml.jackson.core.JsonParser;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import org.apache.drill.exec.store.easy.json.JsonProcessor;
+import org.apache.drill.exec.vector.complex.fn.JsonReader;
+import org.apache.drill.exec.vector.complex.impl.VectorContainerWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class RestRecordReaderTest {
+
+    @Test
+    public void testNestedRoot() throws Exception {
+        //После массива записей в документе есть и другие поля
+        String document = "{\"data\": {\"items\": [{\"id\": 1, \"name\": \"a\"}, {\"id\": 2, \"tags\": [1]}], \"total\": 2}, \"status\": \"ok\"}";
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(2, read(output, document, "$.data.items"));
+            Assert.assertEquals(Arrays.asList(1L, 2L), output.values("id", 2));
+            Assert.assertEquals(Arrays.asList("a", null), output.values("name", 2));
+            Assert.assertFalse(output.getVectors().containsKey("total"));
+        }
+    }
+
+    @Test
+    public void testRootObject() throws Exception {
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(1, read(output, "{\"data\": {\"id\": 1}, \"status\": \"ok\"}", "/data"));
+            Assert.assertEquals(Collections.singletonList(1L), output.values("id", 1));
+        }
+    }
+
+    @Test
+    public void testEmptyRoot() throws Exception {
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(0, read(output, "{\"data\": {\"items\": []}, \"status\": \"ok\"}", "$.data.items"));
+            Assert.assertEquals(0, read(output, "{\"status\": \"ok\"}", "$.data.items"));
+        }
+    }
+
+    @Test
+    public void testCount() throws Exception {
+        //count(*) по массиву: CountingJsonReader отказывается читать массив, поэтому элементы считаются при проходе
+        String document = "{\"data\": {\"items\": [{\"id\": 1, \"tags\": [1, 2]}, {\"id\": [{}]}, {}], \"total\": 3}}";
+        Assert.assertEquals(3, count(document, "$.data.items"));
+        Assert.assertEquals(1, count(document, "/data"));
+        Assert.assertEquals(0, count(document, "$.data.missing"));
+        Assert.assertEquals(0, count("{\"items\": []}", "/items"));
+        Assert.assertEquals(-1, count(document, "$.data.total"));
+
+        try (TestOutput output = new TestOutput()) {
+            VectorContainerWriter writer = new VectorContainerWriter(output);
+            CountRecordParser parser = new CountRecordParser(count(document, "$.data.items"));
+            int records = 0;
+            while (parser.write(writer)) {
+                records++;
+            }
+            Assert.assertEquals(3, records);
+        }
+    }
+
+    private static long count(String document, String root) throws Exception {
+        try (JsonParser parser = RestRecordReader.MAPPER.getFactory().createParser(document)) {
+            return RestRecordReader.countRecords(parser, JsonRoot.compile(root));
+        }
+    }
+
+    private static int read(TestOutput output, String document, String root) throws Exception {
+        ByteBuf body = Unpooled.wrappedBuffer(document.getBytes(StandardCharsets.UTF_8));
+        JsonReader jsonReader = new JsonReader.Builder(output.getManagedBuffer())
+                .skipOuterList(true)
+                .defaultSchemaPathColumns()
+                .build();
+        VectorContainerWriter writer = new VectorContainerWriter(output);
+        try (JsonParser parser = RestRecordReader.MAPPER.getFactory().createParser(new ByteBufInputStream(body.slice()))) {
+            Assert.assertTrue(RestRecordReader.setRecordsSource(jsonReader, parser, body, JsonRoot.compile(root)));
+        }
+
+        writer.allocate();
+        writer.reset();
+        int count = 0;
+        writer.setPosition(count);
+        while (jsonReader.write(writer) == JsonProcessor.ReadState.WRITE_SUCCEED) {
+            writer.setPosition(++count);
+        }
+        writer.setValueCount(count);
+        return count;
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.exec.expr.TypeHelper;
+import org.apache.drill.exec.memory.BufferAllocator;
+import org.apache.drill.exec.memory.RootAllocator;
+import org.apache.drill.exec.physical.impl.OutputMutator;
+import org.apache.drill.exec.record.MaterializedField;
+import org.apache.drill.exec.util.CallBack;
+import org.apache.drill.exec.util.Text;
+import org.apache.drill.exec.vector.ValueVector;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Вектора для тестов парсеров: то, что ScanBatch дает ридеру, без фрагмента и оператора
+ *
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+final class TestOutput implements OutputMutator, AutoCloseable {
+
+    private final BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+    private final Map<String, ValueVector> vectors = new LinkedHashMap<>();
+    private final List<DrillBuf> managed = new ArrayList<>();
+
+    @Override
+    public <T extends ValueVector> T addField(MaterializedField field, Class<T> clazz) {
+        ValueVector vector = vectors.get(field.getName());
+        if (vector == null) {
+            vector = TypeHelper.getNewVector(field, allocator);
+            vectors.put(field.getName(), vector);
+        }
+        return clazz.cast(vector);
+    }
+
+    @Override
+    public void allocate(int recordCount) {
+        for (ValueVector vector : vectors.values()) {
+            vector.allocateNew();
+        }
+    }
+
+    @Override
+    public boolean isNewSchema() {
+        return false;
+    }
+
+    /**
+     * Буфер не растет, поэтому берем с запасом
+     */
+    @Override
+    public DrillBuf getManagedBuffer() {
+        DrillBuf buffer = allocator.buffer(64 * 1024);
+        managed.add(buffer);
+        return buffer;
+    }
+
+    @Override
+    public CallBack getCallBack() {
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        for (ValueVector vector : vectors.values()) {
+            vector.clear();
+        }
+        vectors.clear();
+    }
+
+    Map<String, ValueVector> getVectors() {
+        return vectors;
+    }
+
+    /**
+     * @return значения колонки, строки - как String
+     */
+    List<Object> values(String name, int count) {
+        ValueVector vector = vectors.get(name);
+        List<Object> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Object value = vector == null ? null : vector.getAccessor().getObject(i);
+            result.add(value instanceof Text ? value.toString() : value);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        for (DrillBuf buffer : managed) {
+            buffer.release();
+        }
+        allocator.close();
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.drill.exec.store.rest.read;
+
+import org.apache.drill.exec.vector.complex.impl.VectorContainerWriter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Oleg Zinoviev
+ * @since 19.10.26.
+ */
+public class XmlRecordParserTest {
+
+    private static final String ITEMS = "<root>"
+            + "<items><item id=\"1\"><name>a</name></item><item id=\"2\"><name>b</name></item></items>"
+            + "<other><item id=\"3\"/></other>"
+            + "</root>";
+
+    private static final String SOAP = "<s:Envelope xmlns:s=\"urn:soap\" xmlns:m=\"urn:items\"><s:Body>"
+            + "<m:Item><m:id>1</m:id></m:Item>"
+            + "<x:Item xmlns:x=\"urn:other\"><x:id>2</x:id></x:Item>"
+            + "</s:Body></s:Envelope>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAbsolutePath() throws Exception {
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(2, parse(output, ITEMS, "/root/items/item", null));
+            Assert.assertEquals(Arrays.asList("1", "2"), output.values("id", 2));
+            Assert.assertEquals(Arrays.asList("a", "b"), output.values("name", 2));
+        }
+        try (TestOutput output = new TestOutput()) {
+            //Абсолютный путь сравнивается со всей цепочкой
+            Assert.assertEquals(0, parse(output, ITEMS, "/items/item", null));
+        }
+    }
+
+    @Test
+    public void testRelativePath() throws Exception {
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(3, parse(output, ITEMS, "item", null));
+            Assert.assertEquals(Arrays.asList("1", "2", "3"), output.values("id", 3));
+        }
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(2, parse(output, ITEMS, "items/item", null));
+        }
+    }
+
+    @Test
+    public void testWildcard() throws Exception {
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(3, parse(output, ITEMS, "/root/*/item", null));
+        }
+        try (TestOutput output = new TestOutput()) {
+            //Без пути записи - дочерние элементы корня
+            Assert.assertEquals(2, parse(output, ITEMS, null, null));
+        }
+    }
+
+    @Test
+    public void testNamespaces() throws Exception {
+        Map<String, String> namespaces = new HashMap<>();
+        namespaces.put("s", "urn:soap");
+        namespaces.put("m", "urn:items");
+
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(1, parse(output, SOAP, "/s:Envelope/s:Body/m:Item", namespaces));
+            Assert.assertEquals(Collections.singletonList("1"), output.values("id", 1));
+        }
+        try (TestOutput output = new TestOutput()) {
+            //Имя без префикса совпадает с элементом из любого namespace
+            Assert.assertEquals(2, parse(output, SOAP, "Item", namespaces));
+            Assert.assertEquals(Arrays.asList("1", "2"), output.values("id", 2));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPrefix() throws Exception {
+        try (TestOutput output = new TestOutput()) {
+            parse(output, SOAP, "m:Item", Collections.emptyMap());
+        }
+    }
+
+    @Test
+    public void testRepeatedElements() throws Exception {
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(1, parse(output, "<root><r><tag>a</tag><tag>b</tag></r></root>", "r", null));
+            Assert.assertEquals("[\"a\",\"b\"]", String.valueOf(output.values("tag", 1).get(0)));
+        }
+        try (TestOutput output = new TestOutput()) {
+            //Если в списке есть структура, строки тоже пишутся структурами с content
+            Assert.assertEquals(1, parse(output, "<root><r><tag>a</tag><tag><v>1</v></tag></r></root>", "r", null));
+            Assert.assertEquals("[{\"content\":\"a\"},{\"v\":\"1\"}]", String.valueOf(output.values("tag", 1).get(0)));
+        }
+    }
+
+    @Test
+    public void testMixedContent() throws Exception {
+        String document = "<root>"
+                + "<r id=\"1\">text<b>x</b></r>"
+                + "<r><price currency=\"USD\">10</price></r>"
+                + "<r>plain</r>"
+                + "</root>";
+        try (TestOutput output = new TestOutput()) {
+            Assert.assertEquals(3, parse(output, document, "r", null));
+            Assert.assertEquals(Arrays.asList("text", null, "plain"), output.values(XmlRecordParser.CONTENT_FIELD, 3));
+            Assert.assertEquals(Arrays.asList("x", null, null), output.values("b", 3));
+            Assert.assertEquals("{\"currency\":\"USD\",\"content\":\"10\"}", String.valueOf(output.values("price", 2).get(1)));
+        }
+    }
+
+    @Test
+    public void testExternalEntity() throws Exception {
+        File secret = folder.newFile();
+        Files.write(secret.toPath(), "secret".getBytes(StandardCharsets.UTF_8));
+        String document = "<!DOCTYPE root [<!ENTITY xxe SYSTEM \"" + secret.toURI() + "\">]>"
+                + "<root><r><a>&xxe;</a></r></root>";
+
+        try (TestOutput output = new TestOutput()) {
+            int count;
+            try {
+                count = parse(output, document, "r", null);
+            } catch (IOException e) {
+                //DTD выключены - ссылка на сущность не разбирается
+                return;
+            }
+            Assert.assertFalse(String.valueOf(output.values("a", count)).contains("secret"));
+        }
+    }
+
+    private static int parse(TestOutput output, String document, String root, Map<String, String> namespaces) throws IOException {
+        XmlRecordParser recordParser = new XmlRecordParser(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8,
+                root,
+                namespaces,
+                new VarCharBuffer(output.getManagedBuffer()));
+        VectorContainerWriter writer = new VectorContainerWriter(output);
+        writer.allocate();
+        writer.reset();
+
+        int count = 0;
+        writer.setPosition(count);
+        while (recordParser.write(writer)) {
+            writer.setPosition(++count);
+        }
+        recordParser.ensureColumns(writer);
+        writer.setValueCount(count);
+        return count;
+    }
+}